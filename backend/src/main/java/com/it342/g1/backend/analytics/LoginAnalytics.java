@@ -0,0 +1,210 @@
+package com.it342.g1.backend.analytics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Daily/monthly active users and per-minute login rates, maintained incrementally on the
+ * login path instead of COUNT(DISTINCT) over users.last_login. Distinct users are
+ * HyperLogLog sketches per UTC day and month; rates are lock-free minute counters.
+ * Everything is checkpointed to a local file so restarts keep the history.
+ */
+@Component
+public class LoginAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginAnalytics.class);
+
+    public static final int LOGIN = 0;
+    public static final int FAILURE = 1;
+    public static final int LOCKOUT = 2;
+    private static final int KINDS = 3;
+
+    private static final int CHECKPOINT_FORMAT = 1;
+    private static final int DAYS_KEPT = 62;
+    private static final int MONTHS_KEPT = 13;
+
+    @Value("${analytics.checkpoint-path:}")
+    private String checkpointPath;
+
+    @Value("${analytics.window-minutes:1440}")
+    private int windowMinutes;
+
+    private final ConcurrentSkipListMap<LocalDate, HyperLogLog> days = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<YearMonth, HyperLogLog> months = new ConcurrentSkipListMap<>();
+    private MinuteCounters counters;
+
+    @PostConstruct
+    void init() {
+        counters = new MinuteCounters(windowMinutes, KINDS);
+        restore();
+    }
+
+    public void recordLogin(Long userId) {
+        recordLogin(userId, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    void recordLogin(Long userId, LocalDate day) {
+        recordActivity(userId, day);
+        counters.increment(LOGIN, currentMinute());
+    }
+
+    // Active without a login (a token refresh): counts towards DAU/MAU but not the per-minute logins
+    public void recordActivity(Long userId) {
+        recordActivity(userId, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    void recordActivity(Long userId, LocalDate day) {
+        days.computeIfAbsent(day, d -> new HyperLogLog()).add(userId);
+        months.computeIfAbsent(YearMonth.from(day), m -> new HyperLogLog()).add(userId);
+    }
+
+    public void recordFailure() {
+        counters.increment(FAILURE, currentMinute());
+    }
+
+    public void recordLockout() {
+        counters.increment(LOCKOUT, currentMinute());
+    }
+
+    public long dailyActiveUsers(LocalDate day) {
+        HyperLogLog sketch = days.get(day);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    public long monthlyActiveUsers(YearMonth month) {
+        HyperLogLog sketch = months.get(month);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    // Distinct users over the last n days, by merging the daily sketches
+    public long activeUsersOverDays(int n) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        HyperLogLog union = new HyperLogLog();
+        days.subMap(today.minusDays(n - 1L), true, today, true).values().forEach(union::merge);
+        return union.estimate();
+    }
+
+    public Map<String, Object> snapshot(int historyDays, int rateMinutes) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dau", dailyActiveUsers(today));
+        stats.put("mau", monthlyActiveUsers(YearMonth.from(today)));
+        stats.put("rolling30DayActiveUsers", activeUsersOverDays(30));
+
+        List<Map<String, Object>> daily = new ArrayList<>();
+        for (int i = historyDays - 1; i >= 0; i--) {
+            LocalDate day = today.minusDays(i);
+            daily.add(Map.of("date", day.toString(), "activeUsers", dailyActiveUsers(day)));
+        }
+        stats.put("daily", daily);
+
+        long now = currentMinute();
+        int span = Math.min(rateMinutes, counters.windowMinutes());
+        List<Map<String, Object>> perMinute = new ArrayList<>();
+        for (long minute = now - span + 1; minute <= now; minute++) {
+            perMinute.add(Map.of(
+                    "minute", Instant.ofEpochSecond(minute * 60).toString(),
+                    "logins", counters.get(LOGIN, minute),
+                    "failures", counters.get(FAILURE, minute),
+                    "lockouts", counters.get(LOCKOUT, minute)));
+        }
+        stats.put("perMinute", perMinute);
+        return stats;
+    }
+
+    // Pruning runs on every tick, so the sketches stay bounded even without a checkpoint file
+    @Scheduled(fixedDelayString = "${analytics.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        prune();
+        if (checkpointPath.isEmpty()) {
+            return;
+        }
+        Path target = Paths.get(checkpointPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(CHECKPOINT_FORMAT);
+                out.writeInt(days.size());
+                for (Map.Entry<LocalDate, HyperLogLog> day : days.entrySet()) {
+                    out.writeLong(day.getKey().toEpochDay());
+                    day.getValue().writeTo(out);
+                }
+                out.writeInt(months.size());
+                for (Map.Entry<YearMonth, HyperLogLog> month : months.entrySet()) {
+                    out.writeInt(month.getKey().getYear());
+                    out.writeInt(month.getKey().getMonthValue());
+                    month.getValue().writeTo(out);
+                }
+                counters.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not checkpoint login analytics to {}", target, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        checkpoint();
+    }
+
+    private void restore() {
+        if (checkpointPath.isEmpty() || !Files.exists(Paths.get(checkpointPath))) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(checkpointPath))))) {
+            if (in.readInt() != CHECKPOINT_FORMAT) {
+                log.warn("Ignoring login analytics checkpoint with unknown format");
+                return;
+            }
+            int dayCount = in.readInt();
+            for (int i = 0; i < dayCount; i++) {
+                days.put(LocalDate.ofEpochDay(in.readLong()), HyperLogLog.readFrom(in));
+            }
+            int monthCount = in.readInt();
+            for (int i = 0; i < monthCount; i++) {
+                months.put(YearMonth.of(in.readInt(), in.readInt()), HyperLogLog.readFrom(in));
+            }
+            counters.readFrom(in);
+        } catch (IOException e) {
+            log.warn("Could not restore login analytics from {}", checkpointPath, e);
+        }
+    }
+
+    private void prune() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        days.headMap(today.minusDays(DAYS_KEPT)).clear();
+        months.headMap(YearMonth.from(today).minusMonths(MONTHS_KEPT)).clear();
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / 60_000;
+    }
+}
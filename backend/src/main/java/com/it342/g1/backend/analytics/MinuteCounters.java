@@ -0,0 +1,73 @@
+package com.it342.g1.backend.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-minute event counts over a sliding window, one ring slot per minute and kind.
+ * Each slot packs the minute it belongs to with its count into a single long, so a slot
+ * is recycled and incremented by the same CAS and no increment is ever lost to a reset.
+ */
+public class MinuteCounters {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int minutes;
+    private final int kinds;
+    private final AtomicLongArray slots;
+
+    public MinuteCounters(int minutes, int kinds) {
+        this.minutes = minutes;
+        this.kinds = kinds;
+        this.slots = new AtomicLongArray(minutes * kinds);
+    }
+
+    public void increment(int kind, long epochMinute) {
+        int slot = slot(kind, epochMinute);
+        while (true) {
+            long current = slots.get(slot);
+            long updated = (current >>> COUNT_BITS) == epochMinute
+                    ? (current & COUNT_MASK) == COUNT_MASK ? current : current + 1
+                    : (epochMinute << COUNT_BITS) | 1;
+            if (slots.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    public long get(int kind, long epochMinute) {
+        long value = slots.get(slot(kind, epochMinute));
+        return (value >>> COUNT_BITS) == epochMinute ? value & COUNT_MASK : 0;
+    }
+
+    public int windowMinutes() {
+        return minutes;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(minutes);
+        out.writeInt(kinds);
+        for (int i = 0; i < slots.length(); i++) {
+            out.writeLong(slots.get(i));
+        }
+    }
+
+    // Restores a checkpoint written with the same shape; otherwise leaves the counters empty
+    public void readFrom(DataInput in) throws IOException {
+        int savedMinutes = in.readInt();
+        int savedKinds = in.readInt();
+        for (int i = 0; i < savedMinutes * savedKinds; i++) {
+            long value = in.readLong();
+            if (savedMinutes == minutes && savedKinds == kinds) {
+                slots.set(i, value);
+            }
+        }
+    }
+
+    private int slot(int kind, long epochMinute) {
+        return (int) (epochMinute % minutes) * kinds + kind;
+    }
+}
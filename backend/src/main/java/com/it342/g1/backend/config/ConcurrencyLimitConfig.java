@@ -0,0 +1,52 @@
+package com.it342.g1.backend.config;
+
+import com.it342.g1.backend.security.ConcurrencyLimitFilter;
+import com.it342.g1.backend.util.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.web.cors.CorsConfigurationSource;
+
+// Separate adaptive limits for the auth endpoints (BCrypt-bound) and the user endpoints (pool-bound)
+@Configuration
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> authConcurrencyLimit(
+            Environment env, MeterRegistry registry, @Qualifier("corsConfigurationSource") CorsConfigurationSource cors) {
+        return registration("auth", "/api/auth/*", env, registry, cors);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> userConcurrencyLimit(
+            Environment env, MeterRegistry registry, @Qualifier("corsConfigurationSource") CorsConfigurationSource cors) {
+        return registration("user", "/api/user/*", env, registry, cors);
+    }
+
+    private static FilterRegistrationBean<ConcurrencyLimitFilter> registration(
+            String group, String urlPattern, Environment env, MeterRegistry registry, CorsConfigurationSource cors) {
+        String prefix = "concurrency-limit." + group + ".";
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(group,
+                env.getProperty(prefix + "initial", Integer.class, 20),
+                env.getProperty(prefix + "min", Integer.class, 4),
+                env.getProperty(prefix + "max", Integer.class, 200),
+                env.getProperty("concurrency-limit.tolerance", Double.class, 2.0),
+                env.getProperty("concurrency-limit.smoothing", Double.class, 0.2),
+                env.getProperty("concurrency-limit.window-ms", Long.class, 1000L),
+                env.getProperty("concurrency-limit.min-samples", Integer.class, 10),
+                registry);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limiter, cors));
+        registration.setName(group + "ConcurrencyLimitFilter");
+        registration.addUrlPatterns(urlPattern);
+        // Ahead of Spring Security so refused requests cost next to nothing; the filter adds CORS headers itself
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
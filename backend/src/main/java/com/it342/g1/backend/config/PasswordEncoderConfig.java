@@ -1,15 +1,17 @@
 package com.it342.g1.backend.config;
 
+import com.it342.g1.backend.security.TunableBCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class PasswordEncoderConfig {
     
+    // Cost for new hashes; adjustable at runtime through /api/internal/tuning
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10); 
+    public PasswordEncoder passwordEncoder(@Value("${bcrypt.strength:10}") int strength) {
+        return new TunableBCryptPasswordEncoder(strength);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.it342.g1.backend.config;
+
+import com.it342.g1.backend.sharding.ShardRouter;
+import com.it342.g1.backend.sharding.ShardRoutingDataSource;
+import com.it342.g1.backend.sharding.ShardSchemaInitializer;
+import com.it342.g1.backend.sharding.ShardingProperties;
+import com.it342.g1.backend.sharding.UserShardRoutingAspect;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // Replaces the auto-configured single datasource with one pool per shard behind a router
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+    public DataSource dataSource(ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("sharding.enabled=true requires at least one sharding.shards entry");
+        }
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            pool.setPoolName("shard-" + i);
+            pool.setMaximumPoolSize(properties.getPoolSize());
+            targets.put(i, pool);
+        }
+        ShardRoutingDataSource router = new ShardRoutingDataSource();
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(targets.get(ShardRouter.DIRECTORY_SHARD));
+        router.afterPropertiesSet();
+        return router;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+    public ShardSchemaInitializer shardSchemaInitializer(ShardingProperties properties, DataSource dataSource) {
+        return new ShardSchemaInitializer(properties.getShards().size(), dataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer shardingHibernateProperties(ShardSchemaInitializer schemaInitializer) {
+        return properties -> {
+            // Give connections back after each transaction so the next one can route to a different shard
+            properties.put("hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+            properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(schemaInitializer));
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+    public UserShardRoutingAspect userShardRoutingAspect(ShardRouter shardRouter) {
+        return new UserShardRoutingAspect(shardRouter);
+    }
+}
@@ -0,0 +1,46 @@
+package com.it342.g1.backend.config;
+
+import com.it342.g1.backend.timing.PoolWaitTimingDataSource;
+import com.it342.g1.backend.timing.ServerTimingFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+// Per-request phase timing: Server-Timing header, slow-request log, pool-wait measurement
+@Configuration
+@ConditionalOnProperty(name = "timing.enabled", havingValue = "true", matchIfMissing = true)
+public class TimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${timing.server-timing-header.enabled:false}") boolean emitHeader,
+            @Value("${timing.slow-request.threshold-ms:500}") long slowThresholdMs,
+            @Value("${timing.slow-request.sample-rate:1.0}") double slowSampleRate) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(emitHeader, slowThresholdMs, slowSampleRate));
+        registration.addUrlPatterns("/api/*");
+        // Outermost, so the total includes the concurrency limiter and Spring Security
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    // Wraps the application DataSource (the shard router when sharding is on) after its pool is configured
+    @Bean
+    public static BeanPostProcessor poolWaitTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && "dataSource".equals(beanName)) {
+                    return new PoolWaitTimingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
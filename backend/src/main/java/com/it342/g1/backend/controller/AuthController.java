@@ -1,12 +1,14 @@
 package com.it342.g1.backend.controller;
 
 import com.it342.g1.backend.service.AuthService;
+import com.it342.g1.backend.service.IdempotencyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
 
+// Failures are mapped to responses by GlobalExceptionHandler
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = { "http://localhost:3000", "http://localhost:3001" })
@@ -15,44 +17,57 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     // Register endpoint
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> request) {
-        try {
-            String username = request.get("username");
-            String email = request.get("email");
-            String password = request.get("password");
-
-            String message = authService.registerUser(username, email, password);
-            return ResponseEntity.ok(Map.of("message", message));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-        }
+    public ResponseEntity<?> register(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, String> request) {
+        String username = request.get("username");
+        String email = request.get("email");
+        String password = request.get("password");
+
+        // A retried registration replays the first outcome instead of re-hashing and failing as a duplicate
+        return idempotencyService.execute("register", idempotencyKey,
+                IdempotencyService.fingerprint(username, email, password), () -> {
+                    String message = authService.registerUser(username, email, password);
+                    return ResponseEntity.ok(Map.of("message", message));
+                });
     }
 
     // Login endpoint
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody Map<String, String> request) {
-        try {
-            String identifier = request.get("username"); // Can be username or email
-            String password = request.get("password");
-
-            AuthService.AuthResponse response = authService.loginUser(identifier, password);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-        }
+        String identifier = request.get("username"); // Can be username or email
+        String password = request.get("password");
+
+        AuthService.AuthResponse response = authService.loginUser(identifier, password);
+        return ResponseEntity.ok(response);
     }
 
-    // Logout endpoint
+    // Refresh endpoint: trade a refresh token for a new access token and refresh token
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> request) {
+        AuthService.AuthResponse response = authService.refresh(request.get("refreshToken"));
+        return ResponseEntity.ok(response);
+    }
+
+    // Logout endpoint; send the refresh token in the body to revoke it as well
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader) {
-        try {
-            String token = authHeader.replace("Bearer ", "");
-            String message = authService.logoutUser(token);
-            return ResponseEntity.ok(Map.of("message", message));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-        }
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader,
+                                    @RequestBody(required = false) Map<String, String> request) {
+        String token = authHeader.replace("Bearer ", "");
+        String message = authService.logoutUser(token, request == null ? null : request.get("refreshToken"));
+        return ResponseEntity.ok(Map.of("message", message));
+    }
+
+    // Logout-everywhere endpoint
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(@RequestHeader("Authorization") String authHeader) {
+        String token = authHeader.replace("Bearer ", "");
+        String message = authService.logoutAllSessions(token);
+        return ResponseEntity.ok(Map.of("message", message));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.dto.BulkAccountFilter;
+import com.it342.g1.backend.service.BulkAccountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/internal/accounts/bulk")
+public class InternalAccountController {
+
+    @Autowired
+    private BulkAccountService bulkAccountService;
+
+    @Value("${bulk.max-ids:10000}")
+    private int maxIds;
+
+    // Start an unlock, deactivate or force-reset job over the accounts matching the filter
+    @PostMapping("/{operation}")
+    public ResponseEntity<?> submit(@PathVariable String operation, @RequestBody BulkAccountFilter filter) {
+        Optional<BulkAccountService.Operation> parsed = BulkAccountService.Operation.parse(operation);
+        if (parsed.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Operation must be unlock, deactivate or force-reset"));
+        }
+        // An empty filter would touch every account; that must never happen by accident
+        if (filter.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At least one filter criterion is required"));
+        }
+        if (filter.getUserIds() != null) {
+            if (filter.getUserIds().size() > maxIds) {
+                return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxIds + " userIds per job"));
+            }
+            if (filter.getUserIds().contains(null)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "userIds must not contain null"));
+            }
+        }
+        return ResponseEntity.accepted().body(bulkAccountService.submit(parsed.get(), filter));
+    }
+
+    // Progress of one job
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> status(@PathVariable String jobId) {
+        return bulkAccountService.status(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Unknown job")));
+    }
+
+    // Most recent jobs, oldest first
+    @GetMapping
+    public ResponseEntity<?> recentJobs() {
+        return ResponseEntity.ok(bulkAccountService.recentJobs());
+    }
+}
@@ -0,0 +1,91 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.exception.AuthException;
+import com.it342.g1.backend.jfr.FlightRecorderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/internal/jfr")
+public class InternalJfrController {
+
+    private static final long MAX_AGE_MINUTES = 24 * 60;
+    private static final long MAX_SIZE_MB = 1024;
+
+    @Autowired
+    private FlightRecorderService flightRecorderService;
+
+    // Start a continuous recording bounded by age and size
+    @PostMapping("/start")
+    public ResponseEntity<?> start(
+            @RequestParam(defaultValue = "60") long maxAgeMinutes,
+            @RequestParam(defaultValue = "250") long maxSizeMb) {
+        try {
+            return ResponseEntity.ok(flightRecorderService.start(
+                    Duration.ofMinutes(Math.max(1, Math.min(maxAgeMinutes, MAX_AGE_MINUTES))),
+                    Math.max(1, Math.min(maxSizeMb, MAX_SIZE_MB)) * 1024 * 1024));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<?> stop() {
+        try {
+            return ResponseEntity.ok(flightRecorderService.stop());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+
+    // Download the recording so far as a .jfr file for JMC. The declared body type must stay
+    // StreamingResponseBody, or Spring MVC looks for a message converter and answers 500
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump() {
+        Path file;
+        try {
+            file = flightRecorderService.dump();
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, String.valueOf(e.getMessage()));
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message) {
+        byte[] body = AuthException.errorBody(message);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(body));
+    }
+}
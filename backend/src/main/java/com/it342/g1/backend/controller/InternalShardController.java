@@ -0,0 +1,31 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.sharding.ShardRebalancer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/internal/shards")
+public class InternalShardController {
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    // Start moving users to their home shard in the background
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance() {
+        if (!shardRebalancer.start()) {
+            return ResponseEntity.status(409).body(Map.of("error", "Sharding is disabled or a rebalance is already running"));
+        }
+        return ResponseEntity.accepted().body(shardRebalancer.status());
+    }
+
+    // Progress of the current or last rebalance
+    @GetMapping("/rebalance")
+    public ResponseEntity<?> rebalanceStatus() {
+        return ResponseEntity.ok(shardRebalancer.status());
+    }
+}
@@ -0,0 +1,22 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.analytics.LoginAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/internal/stats")
+public class InternalStatsController {
+
+    @Autowired
+    private LoginAnalytics loginAnalytics;
+
+    // DAU/MAU estimates and the recent per-minute login rate
+    @GetMapping("/logins")
+    public ResponseEntity<?> loginStats(
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "60") int minutes) {
+        return ResponseEntity.ok(loginAnalytics.snapshot(Math.max(1, Math.min(days, 62)), Math.max(1, minutes)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.dto.TuningRequest;
+import com.it342.g1.backend.tuning.RuntimeTuningService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/internal/tuning")
+public class InternalTuningController {
+
+    @Autowired
+    private RuntimeTuningService runtimeTuningService;
+
+    // Current values and the limits each may be moved within
+    @GetMapping
+    public ResponseEntity<?> settings() {
+        return ResponseEntity.ok(runtimeTuningService.settings());
+    }
+
+    // Change one or more settings; all are validated before any is applied
+    @PatchMapping
+    public ResponseEntity<?> update(@RequestBody TuningRequest request,
+                                    @RequestHeader(value = "X-Operator", required = false) String operator,
+                                    Principal principal) {
+        if (request.getReason() == null || request.getReason().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "A reason is required for the audit trail"));
+        }
+        String who = operator != null && !operator.isBlank() ? operator
+                : principal != null ? principal.getName() : "unknown";
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "applied", runtimeTuningService.apply(request.getSettings(), who, request.getReason()),
+                    "settings", runtimeTuningService.settings()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Recent changes, oldest first
+    @GetMapping("/audit")
+    public ResponseEntity<?> audit() {
+        return ResponseEntity.ok(runtimeTuningService.auditTrail());
+    }
+}
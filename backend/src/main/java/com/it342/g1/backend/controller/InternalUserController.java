@@ -0,0 +1,63 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.dto.UserSummary;
+import com.it342.g1.backend.security.TokenGenerations;
+import com.it342.g1.backend.service.UserBatchLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Failures are mapped to responses by GlobalExceptionHandler
+@RestController
+@RequestMapping("/api/internal/users")
+public class InternalUserController {
+
+    @Autowired
+    private UserBatchLoader userBatchLoader;
+
+    @Autowired
+    private TokenGenerations tokenGenerations;
+
+    @Value("${internal.batch.max-ids:500}")
+    private int maxIds;
+
+    // Resolve many userIds to usernames and emails in one call
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchLookup(@RequestBody Map<String, List<Long>> request) {
+        List<Long> userIds = request.get("userIds");
+        if (userIds == null || userIds.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "userIds is required"));
+        }
+        if (userIds.size() > maxIds) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxIds + " userIds per request"));
+        }
+        if (userIds.contains(null)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "userIds must not contain null"));
+        }
+
+        Map<Long, UserSummary> found = userBatchLoader.load(userIds);
+
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (!found.containsKey(userId)) {
+                missing.add(userId);
+            }
+        }
+
+        return ResponseEntity.ok(Map.of("users", found.values(), "missing", missing));
+    }
+
+    // Invalidate every outstanding token of a compromised account
+    @PostMapping("/{userId}/revoke-tokens")
+    public ResponseEntity<?> revokeTokens(@PathVariable Long userId) {
+        return tokenGenerations.revokeAll(userId)
+                .<ResponseEntity<?>>map(generation -> ResponseEntity.ok(Map.of("userId", userId, "tokenGeneration", generation)))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "User not found")));
+    }
+}
@@ -1,15 +1,26 @@
 package com.it342.g1.backend.controller;
 
+import com.it342.g1.backend.dto.UserProfile;
 import com.it342.g1.backend.entity.User;
 import com.it342.g1.backend.repository.UserRepository;
-import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.security.TokenPrincipal;
+import com.it342.g1.backend.timing.RequestTiming;
+import com.it342.g1.backend.service.IdempotencyService;
+import com.it342.g1.backend.service.UserService;
+import com.it342.g1.backend.util.Identifiers;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/user")
@@ -20,78 +31,153 @@ public class UserController {
     private UserRepository userRepository;
     
     @Autowired
-    private TokenProvider tokenProvider;
+    private UserService userService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
     
     // Get user profile
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile(@RequestHeader("Authorization") String authHeader) {
-        try {
-            String token = authHeader.replace("Bearer ", "");
-            
-            if (!tokenProvider.validateToken(token)) {
-                return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
-            }
-            
-            String username = tokenProvider.getUsernameFromToken(token);
-            Optional<User> userOptional = userRepository.findByUsername(username);
-            
-            if (userOptional.isEmpty()) {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+    public ResponseEntity<?> getProfile(@AuthenticationPrincipal TokenPrincipal principal, WebRequest webRequest) {
+        // Answer revalidation polls from the version column alone
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Long userId = principal.getUserId();
+            Optional<Long> version = RequestTiming.time("lookup", () -> userRepository.findVersionByUserId(userId));
+            if (version.isPresent() && webRequest.checkNotModified(profileETag(userId, version.get()))) {
+                return null;
             }
-            
-            User user = userOptional.get();
-            
-            Map<String, Object> profile = new HashMap<>();
-            profile.put("id", user.getUserId());
-            profile.put("username", user.getUsername());
-            profile.put("email", user.getEmail());
-            profile.put("createdAt", user.getCreatedAt());
-            profile.put("lastLogin", user.getLastLogin());
-            profile.put("isActive", user.getIsActive());
-            
-            return ResponseEntity.ok(profile);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
+        
+        String username = principal.getUsername();
+        Optional<UserProfile> profile = RequestTiming.time("lookup", () -> userService.getProfile(username));
+        
+        if (profile.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        }
+        
+        return ResponseEntity.ok()
+                .eTag(profileETag(profile.get().getId(), profile.get().getVersion()))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.AUTHORIZATION)
+                .body(profile.get());
     }
     
     // Update user profile
     @PutMapping("/profile")
     public ResponseEntity<?> updateProfile(
-            @RequestHeader("Authorization") String authHeader,
+            @AuthenticationPrincipal TokenPrincipal principal,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, String> updates) {
+        // Keys are scoped per user; a retried update replays the first response
+        String username = principal.getUsername();
+        return idempotencyService.execute("profile:" + Identifiers.normalize(username), idempotencyKey,
+                IdempotencyService.fingerprint(ifMatch, new TreeMap<>(updates)),
+                () -> replaceProfile(username, ifMatch, updates));
+    }
+    
+    private ResponseEntity<?> replaceProfile(String username, String ifMatch, Map<String, String> updates) {
+        Optional<User> userOptional = RequestTiming.time("lookup", () -> userService.findByUsername(username));
+        
+        if (userOptional.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        }
+        
+        User user = userOptional.get();
+        
+        // Reject edits made against a stale copy of the profile
+        if (ifMatch != null && !ifMatchSatisfied(ifMatch, profileETag(user.getUserId(), user.getVersion()))) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", "Profile was modified by another request"));
+        }
+        
+        // Update allowed fields
+        if (updates.containsKey("email")) {
+            user.setEmail(UserService.requireValidEmail(updates.get("email")));
+        }
+        
+        User toSave = user;
+        user = RequestTiming.time("save", () -> userService.saveProfile(toSave));
+        
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("id", user.getUserId());
+        profile.put("username", user.getUsername());
+        profile.put("email", user.getEmail());
+        profile.put("message", "Profile updated successfully");
+        
+        return ResponseEntity.ok()
+                .eTag(profileETag(user.getUserId(), user.getVersion()))
+                .body(profile);
+    }
+    
+    // Partially update user profile
+    @PatchMapping("/profile")
+    public ResponseEntity<?> patchProfile(
+            @AuthenticationPrincipal TokenPrincipal principal,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody Map<String, String> updates) {
-        try {
-            String token = authHeader.replace("Bearer ", "");
-            
-            if (!tokenProvider.validateToken(token)) {
-                return ResponseEntity.status(401).body(Map.of("error", "Invalid token"));
+        Long userId = principal.getUserId();
+        
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = versionFromETag(ifMatch, userId);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                        .body(Map.of("error", "Profile was modified by another request"));
             }
-            
-            String username = tokenProvider.getUsernameFromToken(token);
-            Optional<User> userOptional = userRepository.findByUsername(username);
-            
-            if (userOptional.isEmpty()) {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        }
+        
+        Long expected = expectedVersion;
+        UserService.PatchResult result = RequestTiming.time("save", () -> userService.patchProfile(userId, updates, expected));
+        if (result == UserService.PatchResult.NOT_FOUND) {
+            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        }
+        if (result == UserService.PatchResult.VERSION_MISMATCH) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", "Profile was modified by another request"));
+        }
+        
+        Map<String, Object> profile = new HashMap<>(updates);
+        profile.put("id", userId);
+        profile.put("message", "Profile updated successfully");
+        
+        // The new version is only known without a read when the client sent one
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (expectedVersion != null) {
+            response.eTag(profileETag(userId, expectedVersion + 1));
+        }
+        return response.body(profile);
+    }
+    
+    // Strong ETag derived from the row version
+    private static String profileETag(Long userId, Long version) {
+        return "\"" + userId + "-" + version + "\"";
+    }
+    
+    // Version encoded in one of our ETags, or null if none belongs to this user
+    private static Long versionFromETag(String ifMatch, Long userId) {
+        String prefix = "\"" + userId + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
             }
-            
-            User user = userOptional.get();
-            
-            // Update allowed fields
-            if (updates.containsKey("email")) {
-                user.setEmail(updates.get("email"));
+        }
+        return null;
+    }
+    
+    // If-Match uses strong comparison and may list several tags or "*"
+    private static boolean ifMatchSatisfied(String ifMatch, String currentETag) {
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(currentETag)) {
+                return true;
             }
-            
-            userRepository.save(user);
-            
-            Map<String, Object> profile = new HashMap<>();
-            profile.put("id", user.getUserId());
-            profile.put("username", user.getUsername());
-            profile.put("email", user.getEmail());
-            profile.put("message", "Profile updated successfully");
-            
-            return ResponseEntity.ok(profile);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
+        return false;
     }
 }
@@ -0,0 +1,26 @@
+package com.it342.g1.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Selects the accounts a bulk admin operation applies to; all given criteria must match
+@Data
+public class BulkAccountFilter {
+    private List<Long> userIds;
+
+    // account_locked_until > now
+    private Boolean currentlyLocked;
+
+    // Range over account_locked_until, e.g. the locks set during one attack window
+    private LocalDateTime lockedUntilAfter;
+    private LocalDateTime lockedUntilBefore;
+
+    private Boolean active;
+
+    public boolean isEmpty() {
+        return (userIds == null || userIds.isEmpty()) && currentlyLocked == null
+                && lockedUntilAfter == null && lockedUntilBefore == null && active == null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.it342.g1.backend.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Lockout columns as left by an atomic failed-login update
+@Value
+public class LoginAttemptState {
+    Integer failedLoginAttempts;
+    LocalDateTime accountLockedUntil;
+}
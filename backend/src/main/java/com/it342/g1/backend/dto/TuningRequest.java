@@ -0,0 +1,14 @@
+package com.it342.g1.backend.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class TuningRequest {
+    // Setting name to new value, e.g. {"bcrypt.strength": 11}
+    private Map<String, Long> settings;
+
+    // Recorded in the audit trail; required
+    private String reason;
+}
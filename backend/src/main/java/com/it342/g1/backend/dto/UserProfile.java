@@ -0,0 +1,27 @@
+package com.it342.g1.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.it342.g1.backend.entity.User;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Immutable snapshot of the profile body; safe to hand to several concurrent requests
+@Value
+public class UserProfile {
+    Long id;
+    String username;
+    String email;
+    LocalDateTime createdAt;
+    LocalDateTime lastLogin;
+    Boolean isActive;
+
+    // Carried for the ETag, not part of the body
+    @JsonIgnore
+    Long version;
+
+    public static UserProfile from(User user) {
+        return new UserProfile(user.getUserId(), user.getUsername(), user.getEmail(),
+                user.getCreatedAt(), user.getLastLogin(), user.getIsActive(), user.getVersion());
+    }
+}
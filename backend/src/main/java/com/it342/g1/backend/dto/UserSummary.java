@@ -0,0 +1,11 @@
+package com.it342.g1.backend.dto;
+
+import lombok.Value;
+
+// Narrow projection served to internal services; immutable so it can be shared across requests
+@Value
+public class UserSummary {
+    Long userId;
+    String username;
+    String email;
+}
@@ -0,0 +1,56 @@
+package com.it342.g1.backend.entity;
+
+import javax.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Dormant account moved out of the hot users table; restored on its next login
+@Entity
+@Table(name = "users_archive", indexes = {
+        @Index(name = "ux_users_archive_username_normalized", columnList = "username_normalized", unique = true),
+        @Index(name = "ux_users_archive_email_normalized", columnList = "email_normalized", unique = true)
+})
+@Data
+public class ArchivedUser {
+
+    // Same id the user had (and gets back) in the users table
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false, length = 20)
+    private String username;
+
+    @Column(name = "username_normalized", length = 20)
+    private String usernameNormalized;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
+    @Column(nullable = false)
+    private String password;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_login")
+    private LocalDateTime lastLogin;
+
+    @Column(name = "is_active")
+    private Boolean isActive;
+
+    @Column(name = "must_reset_password")
+    private Boolean mustResetPassword;
+
+    @Column(name = "token_generation")
+    private Long tokenGeneration;
+
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
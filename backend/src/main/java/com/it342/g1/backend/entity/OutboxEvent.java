@@ -0,0 +1,61 @@
+package com.it342.g1.backend.entity;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Side effect recorded in the same transaction as the change that caused it; deleted once delivered
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "ix_outbox_events_due", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    public static final String PENDING = "PENDING";
+    public static final String DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status = PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Lease held by the dispatcher that claimed the row; expired leases are claimable again
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public OutboxEvent(String eventType, Long aggregateId, String payload) {
+        this.eventType = eventType;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.it342.g1.backend.entity;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Only the SHA-256 of the token is stored; every token issued from one login shares a family for reuse detection
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "ux_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "ix_refresh_tokens_family_id", columnList = "family_id"),
+        @Index(name = "ix_refresh_tokens_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Usernames never change, so the access token can be issued without reading the user
+    @Column(nullable = false, length = 20)
+    private String username;
+
+    // User's token generation at login; "log out everywhere" invalidates refresh tokens too
+    @Column(name = "token_generation", nullable = false)
+    private Long tokenGeneration;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set when the token is exchanged; presenting it again afterwards is reuse
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+}
@@ -0,0 +1,34 @@
+package com.it342.g1.backend.entity;
+
+import javax.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Global placement record for a user; lives on shard 0 and is only populated when sharding is enabled
+@Entity
+@Table(name = "user_shard_directory")
+@Data
+@NoArgsConstructor
+public class ShardDirectoryEntry {
+
+    @Id
+    @Column(name = "username_normalized", length = 20)
+    private String usernameNormalized;
+
+    @Column(name = "email_normalized", unique = true, nullable = false)
+    private String emailNormalized;
+
+    // Null only between claiming the names and inserting the user row
+    @Column(name = "user_id", unique = true)
+    private Long userId;
+
+    @Column(name = "shard", nullable = false)
+    private Integer shard;
+
+    public ShardDirectoryEntry(String usernameNormalized, String emailNormalized, Long userId, Integer shard) {
+        this.usernameNormalized = usernameNormalized;
+        this.emailNormalized = emailNormalized;
+        this.userId = userId;
+        this.shard = shard;
+    }
+}
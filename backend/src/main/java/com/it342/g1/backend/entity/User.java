@@ -1,12 +1,21 @@
 package com.it342.g1.backend.entity;
 
 import javax.persistence.*;
+import com.it342.g1.backend.util.Identifiers;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // InnoDB secondary indexes carry the primary key, so id resolution and existence checks are index-only
+        @Index(name = "ux_users_username_normalized", columnList = "username_normalized", unique = true),
+        @Index(name = "ux_users_email_normalized", columnList = "email_normalized", unique = true),
+        // "Currently locked" is a short range scan (account_locked_until > now) instead of a full table scan
+        @Index(name = "ix_users_account_locked_until", columnList = "account_locked_until"),
+        // Only revoking users have a non-zero generation, so the revocation map reload is a short range scan
+        @Index(name = "ix_users_token_generation", columnList = "token_generation")
+})
 @Data
 public class User {
 
@@ -21,6 +30,13 @@ public class User {
     @Column(unique = true, nullable = false)
     private String email;
 
+    // Case-insensitive lookup keys; nullable only until the backfill has run
+    @Column(name = "username_normalized", length = 20)
+    private String usernameNormalized;
+
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
     @Column(nullable = false)
     private String password;
 
@@ -34,12 +50,34 @@ public class User {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
-    @Column(name = "failed_login_attempts")
+    // Lockout state is only changed by UPDATE statements, so entity saves never write it back stale and
+    // failed logins need not bump the version
+    @Column(name = "failed_login_attempts", updatable = false)
     private Integer failedLoginAttempts = 0;
 
-    @Column(name = "account_locked_until")
+    @Column(name = "account_locked_until", updatable = false)
     private LocalDateTime accountLockedUntil;
 
+    // Set by an admin force-reset; login is refused until the password is changed
+    @Column(name = "must_reset_password", columnDefinition = "boolean default false not null")
+    private Boolean mustResetPassword = false;
+
+    // Tokens issued under an older generation are rejected; only UPDATE statements bump it, entity saves never write it
+    @Column(name = "token_generation", columnDefinition = "bigint default 0 not null", updatable = false)
+    private Long tokenGeneration = 0L;
+
+    // Bumped on every update; exposed as the profile ETag
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeIdentifiers() {
+        usernameNormalized = Identifiers.normalize(username);
+        emailNormalized = Identifiers.normalize(email);
+    }
+
     // Getters and setters provided by @Data annotation
     public String getUsername() {
         return username;
@@ -88,4 +126,8 @@ public class User {
     public LocalDateTime getAccountLockedUntil() {
         return accountLockedUntil;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,16 @@
+package com.it342.g1.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 409: the username or email already belongs to another account
+public class AccountConflictException extends AuthException {
+
+    public static final AccountConflictException USERNAME_TAKEN =
+            new AccountConflictException("Username already exists");
+    public static final AccountConflictException EMAIL_TAKEN =
+            new AccountConflictException("Email already exists");
+
+    public AccountConflictException(String message) {
+        super(HttpStatus.CONFLICT, message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.it342.g1.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 403: an admin deactivated the account or requires a password reset before the next login
+public class AccountDisabledException extends AuthException {
+
+    public static final AccountDisabledException DEACTIVATED =
+            new AccountDisabledException("Account is deactivated");
+    public static final AccountDisabledException PASSWORD_RESET_REQUIRED =
+            new AccountDisabledException("Password reset required");
+
+    public AccountDisabledException(String message) {
+        super(HttpStatus.FORBIDDEN, message);
+    }
+}
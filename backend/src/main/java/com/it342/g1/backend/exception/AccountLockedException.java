@@ -0,0 +1,16 @@
+package com.it342.g1.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 423: the account is temporarily locked after repeated failed logins
+public class AccountLockedException extends AuthException {
+
+    public static final AccountLockedException LOCKED =
+            new AccountLockedException("Account is locked. Try again later.");
+    public static final AccountLockedException LOCKED_NOW =
+            new AccountLockedException("Account locked due to multiple failed attempts");
+
+    public AccountLockedException(String message) {
+        super(HttpStatus.LOCKED, message);
+    }
+}
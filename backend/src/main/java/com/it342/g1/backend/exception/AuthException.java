@@ -0,0 +1,43 @@
+package com.it342.g1.backend.exception;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base of the expected client failures on the auth and user endpoints. These are control flow, not
+ * bugs: they are stackless and immutable, so the common ones are thrown as shared
+ * constants, and each carries its {"error": ...} body already serialized for
+ * GlobalExceptionHandler. A credential-stuffing burst then costs neither stack walks
+ * nor per-request JSON writes.
+ */
+public abstract class AuthException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final byte[] body;
+
+    protected AuthException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.body = errorBody(message);
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    // Pre-serialized response body; callers must not modify it
+    public byte[] getBody() {
+        return body;
+    }
+
+    public static byte[] errorBody(String message) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(message.length() + 16);
+        out.writeBytes("{\"error\":\"".getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(message));
+        out.writeBytes("\"}".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,20 @@
+package com.it342.g1.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 400: registration input that fails validation
+public class AuthValidationException extends AuthException {
+
+    public static final AuthValidationException INVALID_USERNAME =
+            new AuthValidationException("Username must be 3-20 characters, alphanumeric and underscore only");
+    public static final AuthValidationException INVALID_EMAIL =
+            new AuthValidationException("Invalid email format");
+    public static final AuthValidationException WEAK_PASSWORD =
+            new AuthValidationException("Password must be at least 8 characters with uppercase, lowercase, number, and special character");
+    public static final AuthValidationException BREACHED_PASSWORD =
+            new AuthValidationException("This password has appeared in a data breach. Please choose a different one");
+
+    public AuthValidationException(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+}
@@ -0,0 +1,79 @@
+package com.it342.g1.backend.exception;
+
+import com.it342.g1.backend.controller.AuthController;
+import com.it342.g1.backend.controller.InternalUserController;
+import com.it342.g1.backend.controller.UserController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+
+// Maps failures from the auth, user and internal user endpoints to status codes and {"error": ...} bodies
+@RestControllerAdvice(assignableTypes = { AuthController.class, UserController.class, InternalUserController.class })
+public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private static final byte[] STALE_PROFILE = AuthException.errorBody("Profile was modified by another request");
+
+    // Expected auth failures: status and body are precomputed on the exception
+    @ExceptionHandler(AuthException.class)
+    public ResponseEntity<?> handleAuth(AuthException e, HttpServletRequest request) {
+        if (acceptsBinary(request)) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.status(e.getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(e.getBody());
+    }
+
+    // A concurrent update committed between our read and write
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleStaleProfile(ObjectOptimisticLockingFailureException e, HttpServletRequest request) {
+        if (acceptsBinary(request)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(Map.of("error", "Profile was modified by another request"));
+        }
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(STALE_PROFILE);
+    }
+
+    // Invalid input rejected by the services, e.g. a field PATCH cannot change
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleInvalid(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    // Anything else is a bug or an outage: log it and keep the details out of the response
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<?> handleOther(Exception e, HttpServletRequest request) {
+        log.error("Unhandled error on {} {}", request.getMethod(), request.getRequestURI(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Internal server error"));
+    }
+
+    // Framework failures (405, 406, 415, unreadable body, missing header) keep their status from the base class
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception e, Object body, HttpHeaders headers,
+                                                             HttpStatus status, WebRequest request) {
+        if (body == null && status.is4xxClientError() && status != HttpStatus.NOT_ACCEPTABLE) {
+            body = Map.of("error", String.valueOf(e.getMessage()));
+        }
+        return super.handleExceptionInternal(e, body, headers, status, request);
+    }
+
+    // CBOR / Smile clients get errors through content negotiation; the pre-serialized bodies are JSON only
+    private static boolean acceptsBinary(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && (accept.contains("cbor") || accept.contains("smile"));
+    }
+}
@@ -0,0 +1,16 @@
+package com.it342.g1.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+// Misuse of an Idempotency-Key: reused with a different request (422) or its first request is still running (409)
+public class IdempotencyException extends AuthException {
+
+    public static final IdempotencyException KEY_REUSED = new IdempotencyException(HttpStatus.UNPROCESSABLE_ENTITY,
+            "Idempotency-Key was already used for a different request");
+    public static final IdempotencyException IN_PROGRESS = new IdempotencyException(HttpStatus.CONFLICT,
+            "A request with this Idempotency-Key is still in progress");
+
+    public IdempotencyException(HttpStatus status, String message) {
+        super(status, message);
+    }
+}
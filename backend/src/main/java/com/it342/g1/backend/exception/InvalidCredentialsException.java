@@ -0,0 +1,20 @@
+package com.it342.g1.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 401: unknown account, wrong password, or a token that is invalid, expired or revoked
+public class InvalidCredentialsException extends AuthException {
+
+    public static final InvalidCredentialsException INVALID_CREDENTIALS =
+            new InvalidCredentialsException("Invalid credentials");
+    public static final InvalidCredentialsException INVALID_TOKEN =
+            new InvalidCredentialsException("Invalid token");
+    public static final InvalidCredentialsException INVALID_REFRESH_TOKEN =
+            new InvalidCredentialsException("Invalid refresh token");
+    public static final InvalidCredentialsException REFRESH_TOKEN_REUSED =
+            new InvalidCredentialsException("Refresh token reuse detected; please log in again");
+
+    public InvalidCredentialsException(String message) {
+        super(HttpStatus.UNAUTHORIZED, message);
+    }
+}
@@ -0,0 +1,27 @@
+package com.it342.g1.backend.jfr;
+
+import com.it342.g1.backend.exception.AuthException;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Common fields of the authentication pipeline's Flight Recorder events. Events are only
+ * recorded while a recording has them enabled (see FlightRecorderService); otherwise
+ * begin()/commit() are no-ops the JIT removes, so instrumentation stays in place in
+ * production. Duration comes from begin()/commit().
+ */
+public abstract class AuthEvent extends Event {
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("User ID")
+    public long userId;
+
+    // "InvalidCredentials", "AccountLocked", ... for the expected failures; "error" otherwise
+    public static String outcomeOf(Throwable failure) {
+        String name = failure.getClass().getSimpleName();
+        return failure instanceof AuthException && name.endsWith("Exception")
+                ? name.substring(0, name.length() - "Exception".length()) : "error";
+    }
+}
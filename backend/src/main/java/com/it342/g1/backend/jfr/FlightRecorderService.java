@@ -0,0 +1,85 @@
+package com.it342.g1.backend.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One bounded, continuous Flight Recorder recording on demand: the JDK "default" settings
+ * (GC, locks, allocation samples) plus the authentication pipeline events. Old data is
+ * discarded past the configured age or size, so it can run for days during an incident.
+ */
+@Service
+public class FlightRecorderService {
+
+    static final String NAME = "rentuma-auth";
+
+    private static final List<Class<? extends AuthEvent>> EVENTS = List.of(LoginEvent.class,
+            RegistrationEvent.class, TokenVerificationEvent.class, PasswordHashEvent.class, RepositoryCallEvent.class);
+
+    private Recording recording;
+
+    public synchronized Map<String, Object> start(Duration maxAge, long maxSizeBytes) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        close();
+        Recording started = new Recording(Configuration.getConfiguration("default"));
+        started.setName(NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSizeBytes);
+        for (Class<? extends AuthEvent> event : EVENTS) {
+            started.enable(event).withoutStackTrace();
+        }
+        started.start();
+        recording = started;
+        return status();
+    }
+
+    public synchronized Map<String, Object> stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No recording is running");
+        }
+        recording.stop();
+        return status();
+    }
+
+    // Writes what the recording holds so far to a temporary .jfr file; the caller deletes it
+    public synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() == RecordingState.CLOSED) {
+            throw new IllegalStateException("No recording to dump");
+        }
+        Path file = Files.createTempFile(NAME + "-", ".jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording == null ? "NONE" : recording.getState().name());
+        if (recording != null) {
+            status.put("startTime", String.valueOf(recording.getStartTime()));
+            status.put("maxAge", String.valueOf(recording.getMaxAge()));
+            status.put("maxSizeBytes", recording.getMaxSize());
+        }
+        return status;
+    }
+
+    private void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
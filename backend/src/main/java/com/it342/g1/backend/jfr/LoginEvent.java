@@ -0,0 +1,15 @@
+package com.it342.g1.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.it342.g1.Login")
+@Label("Login")
+@Description("Login attempt, from lookup to token issue")
+@Category({ "Rentuma", "Authentication" })
+@StackTrace(false)
+public class LoginEvent extends AuthEvent {
+}
@@ -0,0 +1,15 @@
+package com.it342.g1.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.it342.g1.PasswordHash")
+@Label("Password Hash")
+@Description("BCrypt hash or verify")
+@Category({ "Rentuma", "Authentication" })
+@StackTrace(false)
+public class PasswordHashEvent extends AuthEvent {
+}
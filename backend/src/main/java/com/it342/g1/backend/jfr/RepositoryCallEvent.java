@@ -0,0 +1,21 @@
+package com.it342.g1.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.it342.g1.RepositoryCall")
+@Label("Repository Call")
+@Description("Spring Data repository method call, including connection checkout")
+@Category({ "Rentuma", "Persistence" })
+@StackTrace(false)
+public class RepositoryCallEvent extends AuthEvent {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+}
@@ -0,0 +1,50 @@
+package com.it342.g1.backend.jfr;
+
+import com.it342.g1.backend.entity.User;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+// Emits a RepositoryCallEvent around every repository method while a recording enables it
+@Aspect
+@Component
+public class RepositoryCallRecorder {
+
+    @Around("execution(* *(..)) && target(org.springframework.data.repository.Repository)")
+    public Object record(ProceedingJoinPoint pjp) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return pjp.proceed();
+        }
+        event.begin();
+        event.outcome = "error";
+        try {
+            Object result = pjp.proceed();
+            event.outcome = (result == null || (result instanceof Optional && ((Optional<?>) result).isEmpty()))
+                    ? "empty" : "ok";
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = pjp.getSignature().getDeclaringType().getSimpleName();
+                event.method = pjp.getSignature().getName();
+                event.userId = userIdOf(pjp.getArgs());
+                event.commit();
+            }
+        }
+    }
+
+    // The user the call is about, when its first argument says so
+    private static long userIdOf(Object[] args) {
+        if (args.length > 0 && args[0] instanceof Long) {
+            return (Long) args[0];
+        }
+        if (args.length > 0 && args[0] instanceof User && ((User) args[0]).getUserId() != null) {
+            return ((User) args[0]).getUserId();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.it342.g1.backend.migration;
+
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.sharding.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Fills username_normalized / email_normalized for rows created before those columns
+ * existed. Runs in the background after startup, one keyset-paged chunk per
+ * transaction with a pause between chunks, so the table stays online throughout.
+ * Rows whose normalized value collides with another account are logged and left
+ * unset. The backfill is complete once the scan finishes, conflicts or not; the
+ * conflicting rows are counted separately (and exported as a gauge) because they need
+ * manual resolution, not another pass. With sharding enabled each shard is backfilled
+ * in turn.
+ */
+@Component
+public class NormalizedIdentifierBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(NormalizedIdentifierBackfill.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${migration.normalized-identifiers.enabled:true}")
+    private boolean enabled;
+
+    @Value("${migration.normalized-identifiers.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${migration.normalized-identifiers.pause-ms:50}")
+    private long pauseMs;
+
+    private volatile boolean complete;
+    private volatile int conflicts;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("migration.normalized_identifiers.conflicts", this, NormalizedIdentifierBackfill::getConflicts)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(this::run, "normalized-identifier-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // True once the scan has finished, i.e. exact-match fallbacks are no longer needed
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // Rows the last scan left without normalized identifiers because they collide with another account
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    void run() {
+        int[] totals = new int[2];
+        try {
+            shardRouter.forEachShard(shard -> backfillShard(totals));
+            conflicts = totals[1];
+            complete = true;
+            log.info("Normalized identifier backfill finished: {} rows updated, {} conflicts", totals[0], totals[1]);
+            if (totals[1] > 0) {
+                log.warn("{} users collide with another account after normalization and need manual resolution", totals[1]);
+            }
+        } catch (RuntimeException e) {
+            log.error("Normalized identifier backfill stopped after {} rows", totals[0], e);
+        }
+    }
+
+    // totals[0] counts updated rows, totals[1] conflicting rows
+    private void backfillShard(int[] totals) {
+        long afterUserId = 0;
+        while (true) {
+            List<Long> chunk = userRepository.findIdsMissingNormalizedIdentifiers(
+                    afterUserId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                totals[0] += userRepository.backfillNormalizedIdentifiers(chunk);
+            } catch (DataIntegrityViolationException e) {
+                // Retry row by row so one collision does not hold back the whole chunk
+                for (Long userId : chunk) {
+                    try {
+                        totals[0] += userRepository.backfillNormalizedIdentifiers(List.of(userId));
+                    } catch (DataIntegrityViolationException conflict) {
+                        totals[1]++;
+                        log.warn("User {} collides with another account after normalization; resolve manually", userId);
+                    }
+                }
+            }
+            afterUserId = chunk.get(chunk.size() - 1);
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Backfill interrupted", e);
+            }
+        }
+    }
+}
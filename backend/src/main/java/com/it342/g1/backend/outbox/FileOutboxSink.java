@@ -0,0 +1,45 @@
+package com.it342.g1.backend.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.it342.g1.backend.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Appends each event as a JSON line to a local file picked up by the mailer/event shipper
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOutboxSink implements OutboxSink {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${outbox.file.path:data/outbox.jsonl}")
+    private String path;
+
+    @Override
+    public synchronized void deliver(OutboxEvent event) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", event.getId());
+        line.put("type", event.getEventType());
+        line.put("aggregateId", event.getAggregateId());
+        line.put("createdAt", event.getCreatedAt().toString());
+        line.put("payload", objectMapper.readTree(event.getPayload()));
+        Path target = Paths.get(path);
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Files.write(target, (objectMapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,30 @@
+package com.it342.g1.backend.outbox;
+
+import com.it342.g1.backend.entity.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Collects delivered events in memory; for tests and local runs without downstream systems
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final List<OutboxEvent> delivered = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void deliver(OutboxEvent event) {
+        delivered.add(event);
+    }
+
+    public List<OutboxEvent> getDelivered() {
+        return new ArrayList<>(delivered);
+    }
+
+    public void clear() {
+        delivered.clear();
+    }
+}
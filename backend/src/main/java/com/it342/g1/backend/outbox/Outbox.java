@@ -0,0 +1,35 @@
+package com.it342.g1.backend.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.it342.g1.backend.entity.OutboxEvent;
+import com.it342.g1.backend.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+// Records events for OutboxDispatcher; must join the transaction that makes the change
+@Component
+public class Outbox {
+
+    public static final String USER_CREATED = "user.created";
+    public static final String WELCOME_EMAIL = "email.welcome";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String eventType, Long aggregateId, Map<String, ?> payload) {
+        try {
+            outboxEventRepository.save(new OutboxEvent(eventType, aggregateId, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unserializable outbox payload for " + eventType, e);
+        }
+    }
+}
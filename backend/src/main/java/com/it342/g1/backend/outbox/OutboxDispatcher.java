@@ -0,0 +1,151 @@
+package com.it342.g1.backend.outbox;
+
+import com.it342.g1.backend.entity.OutboxEvent;
+import com.it342.g1.backend.repository.OutboxEventRepository;
+import com.it342.g1.backend.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delivers outbox events after their transaction commits, so registration never waits on
+ * mail or event infrastructure. Each poll claims a batch per shard in one short
+ * transaction (FOR UPDATE SKIP LOCKED plus a lease, so several instances can poll side by
+ * side), delivers outside any transaction, then deletes what was delivered. Failures are
+ * retried with jittered exponential backoff and parked as DEAD after outbox.max-attempts.
+ * Delivery is at-least-once: a crash between delivering and deleting redelivers the event
+ * once the lease runs out, so sinks key on the event id.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxSink sink;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff.initial-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${outbox.backoff.max-ms:600000}")
+    private long maxBackoffMs;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter delivered;
+    private Counter failed;
+    private Counter dead;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        delivered = meterRegistry.counter("outbox.events", "outcome", "delivered");
+        failed = meterRegistry.counter("outbox.events", "outcome", "failed");
+        dead = meterRegistry.counter("outbox.events", "outcome", "dead");
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            shardRouter.forEachShard(shard -> {
+                // Keep draining while batches come back full
+                int claimed;
+                do {
+                    claimed = dispatchBatch();
+                } while (claimed == batchSize);
+            });
+        } catch (RuntimeException e) {
+            log.error("Outbox dispatch failed", e);
+        }
+    }
+
+    // Claims, delivers and settles one batch on the current shard; returns its size
+    int dispatchBatch() {
+        List<OutboxEvent> batch = claim();
+        List<Long> done = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            try {
+                sink.deliver(event);
+                done.add(event.getId());
+                delivered.increment();
+            } catch (Exception e) {
+                retryLater(event, e);
+            }
+        }
+        if (!done.isEmpty()) {
+            outboxEventRepository.deleteDelivered(done);
+        }
+        return batch.size();
+    }
+
+    private List<OutboxEvent> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> batch = outboxEventRepository.findClaimable(now, PageRequest.of(0, batchSize));
+            LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+            batch.forEach(event -> event.setClaimedUntil(leaseUntil));
+            return batch;
+        });
+    }
+
+    private void retryLater(OutboxEvent event, Exception e) {
+        int attempts = event.getAttempts() + 1;
+        String error = String.valueOf(e.getMessage());
+        if (error.length() > 500) {
+            error = error.substring(0, 500);
+        }
+        if (attempts >= maxAttempts) {
+            outboxEventRepository.recordFailure(event.getId(), event.getNextAttemptAt(), OutboxEvent.DEAD, error);
+            dead.increment();
+            log.error("Outbox event {} ({}) gave up after {} attempts", event.getId(), event.getEventType(), attempts, e);
+            return;
+        }
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        outboxEventRepository.recordFailure(event.getId(), LocalDateTime.now().plusNanos(jittered * 1_000_000),
+                OutboxEvent.PENDING, error);
+        failed.increment();
+        log.warn("Outbox event {} ({}) failed, attempt {}; retrying in {} ms",
+                event.getId(), event.getEventType(), attempts, jittered, e);
+    }
+}
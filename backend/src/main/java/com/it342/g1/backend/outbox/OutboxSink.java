@@ -0,0 +1,8 @@
+package com.it342.g1.backend.outbox;
+
+import com.it342.g1.backend.entity.OutboxEvent;
+
+// Delivers outbox events downstream; throwing marks the event for retry with backoff
+public interface OutboxSink {
+    void deliver(OutboxEvent event) throws Exception;
+}
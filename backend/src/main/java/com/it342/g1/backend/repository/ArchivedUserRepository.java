@@ -0,0 +1,62 @@
+package com.it342.g1.backend.repository;
+
+import com.it342.g1.backend.dto.UserSummary;
+import com.it342.g1.backend.entity.ArchivedUser;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Not shard-routed: callers pin the shard through ShardRouter; writes run inside the caller's transaction
+@Repository
+public interface ArchivedUserRepository extends JpaRepository<ArchivedUser, Long> {
+    boolean existsByUsernameNormalized(String usernameNormalized);
+    boolean existsByEmailNormalized(String emailNormalized);
+
+    @Query("SELECT a FROM ArchivedUser a "
+            + "WHERE a.usernameNormalized = :identifier OR a.emailNormalized = :identifier")
+    List<ArchivedUser> findByIdentifier(@Param("identifier") String identifierNormalized);
+
+    @Query("SELECT new com.it342.g1.backend.dto.UserSummary(a.userId, a.username, a.email) "
+            + "FROM ArchivedUser a WHERE a.userId IN :userIds")
+    List<UserSummary> findSummariesByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Copy rows that are still dormant at statement time, so a login racing the job keeps its user
+    @Modifying
+    @Query(value = "INSERT INTO users_archive (user_id, username, username_normalized, email, email_normalized, "
+            + "password, created_at, last_login, is_active, must_reset_password, token_generation, version, archived_at) "
+            + "SELECT user_id, username, username_normalized, email, email_normalized, password, created_at, "
+            + "last_login, is_active, must_reset_password, token_generation, version, :now FROM users WHERE user_id IN (:userIds) "
+            + "AND (COALESCE(last_login, created_at) < :dormantBefore "
+            + "OR (is_active = FALSE AND COALESCE(last_login, created_at) < :inactiveBefore))",
+            nativeQuery = true)
+    int copyDormantUsers(@Param("userIds") Collection<Long> userIds, @Param("dormantBefore") LocalDateTime dormantBefore,
+                         @Param("inactiveBefore") LocalDateTime inactiveBefore, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE user_id IN (:userIds) "
+            + "AND user_id IN (SELECT a.user_id FROM users_archive a WHERE a.user_id IN (:userIds))",
+            nativeQuery = true)
+    int deleteArchivedFromUsers(@Param("userIds") Collection<Long> userIds);
+
+    // Restored accounts start with a clean lockout state and a new version (and so a new ETag);
+    // the token generation comes back unchanged so tokens revoked before archival stay revoked
+    @Modifying
+    @Query(value = "INSERT INTO users (user_id, username, username_normalized, email, email_normalized, password, "
+            + "created_at, last_login, is_active, must_reset_password, token_generation, failed_login_attempts, version) "
+            + "SELECT user_id, username, username_normalized, email, email_normalized, password, created_at, "
+            + "last_login, is_active, COALESCE(must_reset_password, FALSE), COALESCE(token_generation, 0), 0, "
+            + "COALESCE(version, 0) + 1 FROM users_archive WHERE user_id = :userId",
+            nativeQuery = true)
+    int copyBackToUsers(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM users_archive WHERE user_id = :userId", nativeQuery = true)
+    int deleteArchived(@Param("userId") Long userId);
+}
@@ -0,0 +1,44 @@
+package com.it342.g1.backend.repository;
+
+import com.it342.g1.backend.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// With sharding enabled, call with ShardContext pinned: events live on their user's shard
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // FOR UPDATE SKIP LOCKED (lock timeout -2): concurrent dispatchers take disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now " +
+           "AND (e.claimedUntil IS NULL OR e.claimedUntil < :now) ORDER BY e.id")
+    List<OutboxEvent> findClaimable(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+    int deleteDelivered(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.status = :status, e.claimedUntil = NULL, e.lastError = :error WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("status") String status, @Param("error") String error);
+
+    long countByStatus(String status);
+}
@@ -0,0 +1,30 @@
+package com.it342.g1.backend.repository;
+
+import com.it342.g1.backend.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Not shard-routed: refresh tokens live on the directory shard; writes run inside the caller's transaction
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Only one exchange of a token can succeed; a concurrent second one sees 0
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usedAt = :now WHERE r.id = :id AND r.usedAt IS NULL")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.familyId = :familyId")
+    int deleteFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,36 @@
+package com.it342.g1.backend.repository;
+
+import com.it342.g1.backend.entity.ShardDirectoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Always call with ShardContext pinned to ShardRouter.DIRECTORY_SHARD
+@Repository
+public interface ShardDirectoryRepository extends JpaRepository<ShardDirectoryEntry, String> {
+    Optional<ShardDirectoryEntry> findByEmailNormalized(String emailNormalized);
+    Optional<ShardDirectoryEntry> findByUserId(Long userId);
+    List<ShardDirectoryEntry> findByUserIdIn(Collection<Long> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ShardDirectoryEntry d SET d.userId = :userId WHERE d.usernameNormalized = :usernameNormalized")
+    int assignUserId(@Param("usernameNormalized") String usernameNormalized, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ShardDirectoryEntry d SET d.emailNormalized = :emailNormalized WHERE d.userId = :userId")
+    int updateEmail(@Param("userId") Long userId, @Param("emailNormalized") String emailNormalized);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ShardDirectoryEntry d SET d.shard = :shard WHERE d.userId = :userId")
+    int updateShard(@Param("userId") Long userId, @Param("shard") Integer shard);
+}
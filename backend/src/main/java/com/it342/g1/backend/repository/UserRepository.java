@@ -1,15 +1,147 @@
 package com.it342.g1.backend.repository;
 
+import com.it342.g1.backend.dto.LoginAttemptState;
+import com.it342.g1.backend.dto.UserSummary;
 import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.sharding.ShardKey;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static com.it342.g1.backend.sharding.ShardKey.Kind.EMAIL;
+import static com.it342.g1.backend.sharding.ShardKey.Kind.USERNAME;
+import static com.it342.g1.backend.sharding.ShardKey.Kind.USER_ID;
+import static com.it342.g1.backend.sharding.ShardKey.Kind.USER_IDS;
+
+// With sharding enabled, @ShardKey parameters decide which shard each call runs on (see UserShardRoutingAspect)
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
-    Optional<User> findByEmail(String email);
-    boolean existsByUsername(String username);
-    boolean existsByEmail(String email);
+    // Lookups go through the normalized columns; pass Identifiers.normalize(...) values
+    Optional<User> findByUsernameNormalized(@ShardKey(USERNAME) String usernameNormalized);
+    Optional<User> findByEmailNormalized(@ShardKey(EMAIL) String emailNormalized);
+    boolean existsByUsernameNormalized(@ShardKey(USERNAME) String usernameNormalized);
+    boolean existsByEmailNormalized(@ShardKey(EMAIL) String emailNormalized);
+
+    // Exact-match fallbacks for rows the normalized-identifier backfill has not reached yet
+    Optional<User> findByUsername(@ShardKey(USERNAME) String username);
+    Optional<User> findByEmail(@ShardKey(EMAIL) String email);
+
+    // Version-only lookup so conditional requests can be answered without loading the entity
+    @Query("SELECT u.version FROM User u WHERE u.userId = :userId")
+    Optional<Long> findVersionByUserId(@ShardKey(USER_ID) @Param("userId") Long userId);
+
+    // One IN query returning only the columns internal callers need
+    @Query("SELECT new com.it342.g1.backend.dto.UserSummary(u.userId, u.username, u.email) "
+            + "FROM User u WHERE u.userId IN :userIds")
+    List<UserSummary> findSummariesByUserIdIn(@ShardKey(USER_IDS) @Param("userIds") Collection<Long> userIds);
+
+    // Narrow single-statement profile writes; no prior SELECT and no full-row rewrite
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.email = :email, u.emailNormalized = :emailNormalized, u.version = u.version + 1 "
+            + "WHERE u.userId = :userId")
+    int updateEmail(@ShardKey(USER_ID) @Param("userId") Long userId, @Param("email") String email,
+                    @Param("emailNormalized") String emailNormalized);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.email = :email, u.emailNormalized = :emailNormalized, u.version = u.version + 1 "
+            + "WHERE u.userId = :userId AND u.version = :expectedVersion")
+    int updateEmailIfVersion(@ShardKey(USER_ID) @Param("userId") Long userId, @Param("email") String email,
+                             @Param("emailNormalized") String emailNormalized,
+                             @Param("expectedVersion") Long expectedVersion);
+
+    // Failed login: count it and lock at the threshold in one statement, so concurrent failures never lose an
+    // increment. Only unlocked rows match, so a burst racing past the lock check cannot count beyond the threshold.
+    // The CASE comes first so it sees the pre-update count on MySQL (left-to-right SET) as well as on H2.
+    // The version is left alone: the profile does not expose the counter, so its ETag stays valid
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.accountLockedUntil = CASE WHEN u.failedLoginAttempts + 1 >= :threshold "
+            + "THEN :lockUntil ELSE u.accountLockedUntil END, "
+            + "u.failedLoginAttempts = u.failedLoginAttempts + 1 "
+            + "WHERE u.userId = :userId AND (u.accountLockedUntil IS NULL OR u.accountLockedUntil <= :now)")
+    int incrementFailedLoginAttempts(@ShardKey(USER_ID) @Param("userId") Long userId, @Param("threshold") int threshold,
+                                     @Param("now") LocalDateTime now, @Param("lockUntil") LocalDateTime lockUntil);
+
+    @Query("SELECT new com.it342.g1.backend.dto.LoginAttemptState(u.failedLoginAttempts, u.accountLockedUntil) "
+            + "FROM User u WHERE u.userId = :userId")
+    Optional<LoginAttemptState> findLoginAttemptState(@ShardKey(USER_ID) @Param("userId") Long userId);
+
+    // Increment and read back in one transaction; the row stays locked in between, so the state is the one
+    // this call produced. Empty if the account was locked (or removed) since it was read
+    @Transactional
+    default Optional<LoginAttemptState> recordFailedLogin(@ShardKey(USER_ID) Long userId, int threshold,
+                                                          LocalDateTime now, LocalDateTime lockUntil) {
+        if (incrementFailedLoginAttempts(userId, threshold, now, lockUntil) == 0) {
+            return Optional.empty();
+        }
+        return findLoginAttemptState(userId);
+    }
+
+    // Successful login: clear the lockout state without rewriting the rest of the row. Returns 0 if a
+    // concurrent failure locked the account after it was read
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.failedLoginAttempts = 0, u.accountLockedUntil = NULL, u.lastLogin = :now, "
+            + "u.version = u.version + 1 "
+            + "WHERE u.userId = :userId AND (u.accountLockedUntil IS NULL OR u.accountLockedUntil <= :now)")
+    int recordSuccessfulLogin(@ShardKey(USER_ID) @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Activity without a password (token refresh): move last_login at most once per interval, so refreshing
+    // users are not archived as dormant without a write on every refresh
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.lastLogin = :now, u.version = u.version + 1 "
+            + "WHERE u.userId = :userId AND (u.lastLogin IS NULL OR u.lastLogin < :staleBefore)")
+    int touchLastLogin(@ShardKey(USER_ID) @Param("userId") Long userId, @Param("now") LocalDateTime now,
+                       @Param("staleBefore") LocalDateTime staleBefore);
+
+    // "Log out everywhere": every token issued to the user so far carries an older generation from now on
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.tokenGeneration = u.tokenGeneration + 1 WHERE u.userId = :userId")
+    int incrementTokenGeneration(@ShardKey(USER_ID) @Param("userId") Long userId);
+
+    @Query("SELECT u.tokenGeneration FROM User u WHERE u.userId = :userId")
+    Optional<Long> findTokenGenerationByUserId(@ShardKey(USER_ID) @Param("userId") Long userId);
+
+    // Increment and read back in one transaction, so concurrent revocations each see their own generation.
+    // Empty if the user does not exist
+    @Transactional
+    default Optional<Long> revokeTokens(@ShardKey(USER_ID) Long userId) {
+        if (incrementTokenGeneration(userId) == 0) {
+            return Optional.empty();
+        }
+        return findTokenGenerationByUserId(userId);
+    }
+
+    // Keyset-paged scan for the normalized-identifier backfill; run per shard via ShardRouter.forEachShard
+    @Query("SELECT u.userId FROM User u WHERE u.userId > :afterUserId "
+            + "AND (u.usernameNormalized IS NULL OR u.emailNormalized IS NULL) ORDER BY u.userId")
+    List<Long> findIdsMissingNormalizedIdentifiers(@Param("afterUserId") Long afterUserId, Pageable page);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE User u SET u.usernameNormalized = LOWER(TRIM(u.username)), "
+            + "u.emailNormalized = LOWER(TRIM(u.email)) WHERE u.userId IN :userIds")
+    int backfillNormalizedIdentifiers(@Param("userIds") Collection<Long> userIds);
+
+    // Keyset-paged scan for the archival job; run per shard via ShardRouter.forEachShard
+    @Query("SELECT u.userId FROM User u WHERE u.userId > :afterUserId "
+            + "AND (COALESCE(u.lastLogin, u.createdAt) < :dormantBefore "
+            + "OR (u.isActive = false AND COALESCE(u.lastLogin, u.createdAt) < :inactiveBefore)) "
+            + "ORDER BY u.userId")
+    List<Long> findDormantUserIds(@Param("afterUserId") Long afterUserId,
+                                  @Param("dormantBefore") LocalDateTime dormantBefore,
+                                  @Param("inactiveBefore") LocalDateTime inactiveBefore, Pageable page);
 }
@@ -0,0 +1,176 @@
+package com.it342.g1.backend.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Offline breached-password check. The index file (see BreachedPasswordIndexBuilder)
+ * holds the first 8 bytes of each breached password's SHA-1, sorted unsigned, after a
+ * 16-byte header. It is memory-mapped in 1 GB segments and binary-searched in place, so
+ * hundreds of millions of hashes cost page cache rather than heap, and the search itself
+ * allocates nothing. The file is re-mapped when its modification time
+ * changes. An 8-byte prefix gives a false-positive rate of about n / 2^64.
+ */
+@Component
+public class BreachedPasswordIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BreachedPasswordIndex.class);
+
+    static final int MAGIC = 0x42504958; // "BPIX"
+    static final int FORMAT = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int SEGMENT_SHIFT = 27; // 2^27 entries = 1 GB per mapped segment
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Value("${breach.index-path:}")
+    private String indexPath;
+
+    private volatile Mapped mapped;
+
+    // One immutable mapping of the file; swapped as a whole on reload
+    private static final class Mapped {
+        final ByteBuffer[] segments;
+        final long count;
+        final long modified;
+
+        Mapped(ByteBuffer[] segments, long count, long modified) {
+            this.segments = segments;
+            this.count = count;
+            this.modified = modified;
+        }
+
+        long get(long i) {
+            return segments[(int) (i >>> SEGMENT_SHIFT)].getLong((int) (i & SEGMENT_MASK) << 3);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        reloadIfChanged();
+    }
+
+    public boolean isEnabled() {
+        return mapped != null;
+    }
+
+    public long size() {
+        Mapped current = mapped;
+        return current == null ? 0 : current.count;
+    }
+
+    public boolean isBreached(String password) {
+        Mapped current = mapped;
+        if (current == null || password == null) {
+            return false;
+        }
+        return contains(current, prefix(password));
+    }
+
+    // Lookup by the hash prefix itself, e.g. at the unsigned-order boundaries
+    boolean containsPrefix(long prefix) {
+        Mapped current = mapped;
+        return current != null && contains(current, prefix);
+    }
+
+    @Scheduled(fixedDelayString = "${breach.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (indexPath.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(indexPath);
+        try {
+            if (!Files.exists(path)) {
+                if (mapped == null) {
+                    log.warn("Breached-password index {} not found; check disabled", path);
+                }
+                return;
+            }
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            Mapped current = mapped;
+            if (current != null && current.modified == modified) {
+                return;
+            }
+            mapped = map(path, modified);
+            log.info("Mapped breached-password index {} ({} hashes)", path, mapped.count);
+        } catch (IOException | IllegalStateException e) {
+            log.error("Could not map breached-password index {}; keeping the previous one", path, e);
+        }
+    }
+
+    // First 8 bytes of SHA-1(UTF-8 password) as an unsigned-ordered long
+    static long prefix(String password) {
+        MessageDigest sha1 = SHA1.get();
+        byte[] digest = sha1.digest(password.getBytes(StandardCharsets.UTF_8));
+        long prefix = 0;
+        for (int i = 0; i < 8; i++) {
+            prefix = (prefix << 8) | (digest[i] & 0xff);
+        }
+        return prefix;
+    }
+
+    private static boolean contains(Mapped index, long key) {
+        long low = 0;
+        long high = index.count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int cmp = Long.compareUnsigned(index.get(mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Mapped map(Path path, long modified) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != FORMAT) {
+                throw new IllegalStateException("Not a breached-password index: " + path);
+            }
+            long count = header.getLong();
+            if (channel.size() != HEADER_BYTES + count * 8) {
+                throw new IllegalStateException("Truncated breached-password index: " + path);
+            }
+            int segmentCount = (int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            ByteBuffer[] segments = new ByteBuffer[segmentCount];
+            for (int s = 0; s < segmentCount; s++) {
+                long first = (long) s << SEGMENT_SHIFT;
+                long entries = Math.min(count - first, 1L << SEGMENT_SHIFT);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * 8, entries * 8);
+                segments[s] = segment;
+            }
+            return new Mapped(segments, count, modified);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.it342.g1.backend.security;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Builds the file read by BreachedPasswordIndex from a downloaded corpus.
+ *
+ * <pre>
+ * java -cp backend.jar -Dloader.main=com.it342.g1.backend.security.BreachedPasswordIndexBuilder \
+ *      org.springframework.boot.loader.PropertiesLauncher [--plaintext] corpus.txt breached.idx
+ * </pre>
+ *
+ * By default each corpus line is a SHA-1 in hex, optionally followed by ":count" (the
+ * Pwned Passwords format); with --plaintext each line is a password. Input of any size is
+ * sorted in runs of 16M hashes and merged, duplicates dropped. The output is written to a
+ * temporary file and moved into place atomically, so a running server re-maps it safely.
+ */
+public final class BreachedPasswordIndexBuilder {
+
+    private static final int RUN_SIZE = 1 << 24;
+
+    private BreachedPasswordIndexBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean plaintext = args.length == 3 && args[0].equals("--plaintext");
+        if (args.length != (plaintext ? 3 : 2)) {
+            System.err.println("usage: BreachedPasswordIndexBuilder [--plaintext] <corpus> <index>");
+            System.exit(2);
+        }
+        Path corpus = Paths.get(args[plaintext ? 1 : 0]);
+        Path index = Paths.get(args[plaintext ? 2 : 1]);
+        long count = build(corpus, index, plaintext);
+        System.out.println("Wrote " + count + " hashes to " + index);
+    }
+
+    public static long build(Path corpus, Path index, boolean plaintext) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(corpus, StandardCharsets.UTF_8)) {
+                long[] run = new long[RUN_SIZE];
+                int size = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    run[size++] = plaintext ? BreachedPasswordIndex.prefix(line) : parseHex(line);
+                    if (size == run.length) {
+                        runs.add(writeRun(run, size));
+                        size = 0;
+                    }
+                }
+                if (size > 0 || runs.isEmpty()) {
+                    runs.add(writeRun(run, size));
+                }
+            }
+            return merge(runs, index);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    // First 16 hex digits of a "SHA1[:count]" line
+    private static long parseHex(String line) {
+        if (line.length() < 40) {
+            throw new IllegalArgumentException("Not a SHA-1 line: " + line);
+        }
+        return Long.parseUnsignedLong(line.substring(0, 16), 16);
+    }
+
+    private static Path writeRun(long[] run, int size) throws IOException {
+        // Flip the sign bit so a signed sort yields unsigned order
+        for (int i = 0; i < size; i++) {
+            run[i] ^= Long.MIN_VALUE;
+        }
+        Arrays.sort(run, 0, size);
+        Path file = Files.createTempFile("breached-run", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(run[i] ^ Long.MIN_VALUE);
+            }
+        }
+        return file;
+    }
+
+    private static final class RunReader {
+        final DataInputStream in;
+        long head;
+
+        RunReader(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                head = in.readLong();
+                return true;
+            } catch (EOFException e) {
+                in.close();
+                return false;
+            }
+        }
+    }
+
+    private static long merge(List<Path> runs, Path index) throws IOException {
+        Path temp = index.resolveSibling(index.getFileName() + ".tmp");
+        PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> Long.compareUnsigned(a.head, b.head));
+        long count = 0;
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(BreachedPasswordIndex.MAGIC);
+                out.writeInt(BreachedPasswordIndex.FORMAT);
+                out.writeLong(0); // count, patched below
+                long previous = 0;
+                while (!queue.isEmpty()) {
+                    RunReader reader = queue.poll();
+                    if (count == 0 || reader.head != previous) {
+                        out.writeLong(reader.head);
+                        previous = reader.head;
+                        count++;
+                    }
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                }
+            }
+        } finally {
+            for (RunReader reader : queue) {
+                reader.in.close();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8).putLong(0, count);
+            channel.write(header, 8);
+        }
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+}
@@ -0,0 +1,76 @@
+package com.it342.g1.backend.security;
+
+import com.it342.g1.backend.util.AdaptiveConcurrencyLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Refuses requests beyond the adaptive in-flight limit with an immediate 503 instead of queueing them
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] BUSY = "{\"error\":\"Server is busy, please retry shortly\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CorsConfigurationSource corsSource;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, CorsConfigurationSource corsSource) {
+        this.limiter = limiter;
+        this.corsSource = corsSource;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // CORS preflights never reach a controller
+        return HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            allowOrigin(request, response);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(BUSY.length);
+            response.getOutputStream().write(BUSY);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = response.getStatus() < 500;
+        } finally {
+            limiter.release(start, completed);
+        }
+    }
+
+    // Refusals never reach Spring Security's CORS handling. Without these headers the web app would only see
+    // an opaque network error, and could not tell "busy, retry" from "down"
+    private void allowOrigin(HttpServletRequest request, HttpServletResponse response) {
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        CorsConfiguration config = origin == null ? null : corsSource.getCorsConfiguration(request);
+        String allowedOrigin = config == null ? null : config.checkOrigin(origin);
+        if (allowedOrigin == null) {
+            return;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ORIGIN);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, allowedOrigin);
+        if (Boolean.TRUE.equals(config.getAllowCredentials())) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+        }
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+    }
+}
@@ -0,0 +1,328 @@
+package com.it342.g1.backend.security;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Verifies the tokens TokenProvider issues itself without going through jjwt's generic
+ * parser. Our tokens always carry the same header ({"alg":"HS256|HS384|HS512"}, chosen by
+ * key length) and the claims {"sub","userId","gen","iat","exp"} in that order ("gen" is
+ * missing from tokens issued before token generations existed), so the
+ * verifier compares the header segment as a constant, computes the HMAC with a per-thread
+ * Mac into per-thread buffers, compares it against the canonical base64url signature, and
+ * scans the decoded payload for the claims in place. Nothing is allocated on the
+ * userId path; subject() and lastSubject() allocate only the returned String.
+ *
+ * Anything that is not exactly our layout (other header, extra or reordered claims,
+ * whitespace, escapes, non-canonical signature encoding, ...) is reported as FALLBACK and
+ * must be handed to jjwt, which stays the authority for everything unusual. A definitive
+ * INVALID is only returned when jjwt would reject the token too: wrong signature with a
+ * canonical encoding, an expired exp, or a generation older than the user's current one
+ * (see TokenGenerations).
+ */
+public class FastTokenVerifier {
+
+    // userId() results that are not a user id
+    public static final long FALLBACK = Long.MIN_VALUE;
+    public static final long INVALID = Long.MIN_VALUE + 1;
+
+    private static final byte[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE64URL.length; i++) {
+            DECODE[BASE64URL[i]] = i;
+        }
+    }
+
+    private static final byte[] SUB = "{\"sub\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] USER_ID = "\",\"userId\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GEN = ",\"gen\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IAT = ",\"iat\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EXP = ",\"exp\":".getBytes(StandardCharsets.US_ASCII);
+
+    // Longest token the fast path accepts; longer ones are unusual enough to leave to jjwt
+    private static final int MAX_TOKEN_LENGTH = 1024;
+
+    private final String headerSegment;
+    private final int macLength;
+    private final int signatureLength;
+    private final ThreadLocal<Scratch> scratch;
+    private final TokenGenerations generations;
+
+    // Per-thread Mac and buffers, reused across verifications
+    private static final class Scratch {
+        final Mac mac;
+        final byte[] input = new byte[MAX_TOKEN_LENGTH];
+        final byte[] digest;
+        final byte[] payload = new byte[MAX_TOKEN_LENGTH];
+        int subStart;
+        int subEnd;
+        long userId;
+        long generation;
+        boolean expired;
+
+        Scratch(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+        }
+    }
+
+    public FastTokenVerifier(SecretKey key, TokenGenerations generations) {
+        String alg = jwsAlgorithm(key.getAlgorithm());
+        this.headerSegment = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("{\"alg\":\"" + alg + "\"}").getBytes(StandardCharsets.US_ASCII));
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(newMac(key)));
+        this.macLength = newMac(key).getMacLength();
+        this.signatureLength = (macLength * 8 + 5) / 6;
+        this.generations = generations;
+    }
+
+    // The token's userId claim, INVALID if jjwt would reject it, FALLBACK if jjwt must decide
+    public long userId(String token) {
+        Scratch s = scratch.get();
+        long verdict = verify(token, s);
+        return verdict == 0 ? s.userId : verdict;
+    }
+
+    // The token's subject, or null if it is invalid or jjwt must decide
+    public String subject(String token) {
+        Scratch s = scratch.get();
+        if (verify(token, s) != 0) {
+            return null;
+        }
+        return new String(s.payload, s.subStart, s.subEnd - s.subStart, StandardCharsets.US_ASCII);
+    }
+
+    // Subject of the token that this thread's last userId() call accepted, without verifying it again.
+    // Only meaningful right after userId() returned a user id.
+    public String lastSubject() {
+        Scratch s = scratch.get();
+        return new String(s.payload, s.subStart, s.subEnd - s.subStart, StandardCharsets.US_ASCII);
+    }
+
+    // 0 when valid (claims left in scratch), otherwise INVALID or FALLBACK
+    private long verify(String token, Scratch s) {
+        if (token == null || token.length() > MAX_TOKEN_LENGTH || !token.startsWith(headerSegment)
+                || token.length() <= headerSegment.length() || token.charAt(headerSegment.length()) != '.') {
+            return FALLBACK;
+        }
+        int payloadStart = headerSegment.length() + 1;
+        int signatureStart = token.indexOf('.', payloadStart) + 1;
+        if (signatureStart == 0 || token.length() - signatureStart != signatureLength
+                || token.indexOf('.', signatureStart) >= 0) {
+            return FALLBACK;
+        }
+
+        // HMAC over "header.payload"; tokens are ASCII, anything else is not ours
+        int signedLength = signatureStart - 1;
+        for (int i = 0; i < signedLength; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                return FALLBACK;
+            }
+            s.input[i] = (byte) c;
+        }
+        s.mac.update(s.input, 0, signedLength);
+        try {
+            s.mac.doFinal(s.digest, 0);
+        } catch (GeneralSecurityException e) {
+            return FALLBACK;
+        }
+        if (!canonicalSignature(token, signatureStart)) {
+            return FALLBACK;
+        }
+        if (!signatureMatches(token, signatureStart, s.digest)) {
+            return INVALID;
+        }
+
+        int payloadLength = decode(token, payloadStart, signedLength, s.payload);
+        if (payloadLength < 0 || !parseClaims(s, payloadLength)) {
+            return FALLBACK;
+        }
+        if (s.expired || s.generation < generations.current(s.userId)) {
+            return INVALID;
+        }
+        return 0;
+    }
+
+    // {"sub":"<plain ascii>","userId":<n>[,"gen":<n>],"iat":<n>,"exp":<n>} exactly, else false
+    private static boolean parseClaims(Scratch s, int length) {
+        byte[] p = s.payload;
+        if (!startsWith(p, 0, length, SUB)) {
+            return false;
+        }
+        int i = SUB.length;
+        s.subStart = i;
+        while (i < length && p[i] != '"') {
+            if (p[i] == '\\' || p[i] < 0x20 || p[i] > 0x7e) {
+                return false;
+            }
+            i++;
+        }
+        s.subEnd = i;
+        if (!startsWith(p, i, length, USER_ID)) {
+            return false;
+        }
+        i += USER_ID.length;
+        int end = numberEnd(p, i, length);
+        if (end < 0) {
+            return false;
+        }
+        s.userId = parseLong(p, i, end);
+        i = end;
+        s.generation = 0;
+        if (startsWith(p, i, length, GEN)) {
+            i += GEN.length;
+            end = numberEnd(p, i, length);
+            if (end < 0) {
+                return false;
+            }
+            s.generation = parseLong(p, i, end);
+            i = end;
+        }
+        if (!startsWith(p, i, length, IAT)) {
+            return false;
+        }
+        i += IAT.length;
+        end = numberEnd(p, i, length);
+        if (end < 0) {
+            return false;
+        }
+        i = end;
+        if (!startsWith(p, i, length, EXP)) {
+            return false;
+        }
+        i += EXP.length;
+        end = numberEnd(p, i, length);
+        // Seconds beyond 12 digits would overflow as milliseconds; leave such exp values to jjwt
+        if (end < 0 || end - i > 12 || end != length - 1 || p[end] != '}') {
+            return false;
+        }
+        // Same rule as jjwt without clock skew: expired once now is past exp
+        s.expired = System.currentTimeMillis() > parseLong(p, i, end) * 1000;
+        return true;
+    }
+
+    // End of a plain non-negative integer of at most 18 digits without leading zeros, or -1
+    private static int numberEnd(byte[] p, int start, int length) {
+        int i = start;
+        while (i < length && p[i] >= '0' && p[i] <= '9') {
+            i++;
+        }
+        int digits = i - start;
+        if (digits == 0 || digits > 18 || (digits > 1 && p[start] == '0')) {
+            return -1;
+        }
+        return i;
+    }
+
+    private static long parseLong(byte[] p, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (p[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean startsWith(byte[] p, int offset, int length, byte[] prefix) {
+        if (length - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (p[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Only alphabet characters and zero unused low bits in the last one; other encodings go to jjwt
+    private boolean canonicalSignature(String token, int start) {
+        for (int i = start; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= 128 || DECODE[c] < 0) {
+                return false;
+            }
+        }
+        int unusedBits = signatureLength * 6 - macLength * 8;
+        return (DECODE[token.charAt(token.length() - 1)] & ((1 << unusedBits) - 1)) == 0;
+    }
+
+    // Constant-time comparison of the signature characters with the encoded digest
+    private boolean signatureMatches(String token, int start, byte[] digest) {
+        int diff = 0;
+        for (int i = 0; i < signatureLength; i++) {
+            diff |= token.charAt(start + i) ^ BASE64URL[sextet(digest, i)];
+        }
+        return diff == 0;
+    }
+
+    // The i-th 6-bit group of the digest, zero-padded at the end
+    private static int sextet(byte[] bytes, int index) {
+        int bit = index * 6;
+        int b = bit >>> 3;
+        int shift = bit & 7;
+        int hi = (bytes[b] & 0xff) << 8;
+        int lo = b + 1 < bytes.length ? bytes[b + 1] & 0xff : 0;
+        return ((hi | lo) >>> (10 - shift)) & 0x3f;
+    }
+
+    // Base64url (unpadded) decode of token[start, end) into out; -1 if malformed or too long
+    private static int decode(String token, int start, int end, byte[] out) {
+        int length = end - start;
+        if (length % 4 == 1) {
+            return -1;
+        }
+        int o = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = start; i < end; i++) {
+            char c = token.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) {
+                return -1;
+            }
+            buffer = (buffer << 6) | v;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                if (o == out.length) {
+                    return -1;
+                }
+                out[o++] = (byte) (buffer >>> bits);
+            }
+        }
+        // Leftover bits must be zero padding
+        return (buffer & ((1 << bits) - 1)) == 0 ? o : -1;
+    }
+
+    private static String jwsAlgorithm(String jcaName) {
+        switch (jcaName) {
+            case "HmacSHA256":
+                return "HS256";
+            case "HmacSHA384":
+                return "HS384";
+            case "HmacSHA512":
+                return "HS512";
+            default:
+                throw new IllegalArgumentException("Unsupported HMAC key algorithm " + jcaName);
+        }
+    }
+
+    private static Mac newMac(SecretKey key) {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + key.getAlgorithm(), e);
+        }
+    }
+}
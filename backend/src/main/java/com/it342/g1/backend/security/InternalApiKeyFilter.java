@@ -0,0 +1,46 @@
+package com.it342.g1.backend.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+// Authenticates service-to-service calls to /api/internal/** and /actuator/** by shared key
+public class InternalApiKeyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Internal-Api-Key";
+
+    private final byte[] apiKey;
+
+    public InternalApiKeyFilter(String apiKey) {
+        this.apiKey = apiKey == null ? new byte[0] : apiKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !path.startsWith("/api/internal/") && !path.startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(HEADER);
+        // An unset key disables the internal API entirely
+        if (apiKey.length > 0 && presented != null
+                && MessageDigest.isEqual(apiKey, presented.getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "internal-service", null, List.of(new SimpleGrantedAuthority("ROLE_INTERNAL"))));
+        }
+        chain.doFilter(request, response);
+    }
+}
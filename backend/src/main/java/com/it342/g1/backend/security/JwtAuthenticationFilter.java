@@ -0,0 +1,50 @@
+package com.it342.g1.backend.security;
+
+import com.it342.g1.backend.timing.RequestTiming;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+// Authenticates /api/user/** by the Bearer access token; a missing, expired or revoked token stays anonymous
+// and is answered 401 by the entry point, which is what tells clients to refresh. The token is verified
+// here and only here: controllers read the resulting TokenPrincipal instead of parsing the token again.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenProvider tokenProvider;
+
+    public JwtAuthenticationFilter(TokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/user/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = header.substring(BEARER.length());
+            TokenPrincipal principal = RequestTiming.time("token", () -> tokenProvider.authenticate(token));
+            if (principal != null) {
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        principal, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
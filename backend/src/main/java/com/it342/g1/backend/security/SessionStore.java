@@ -0,0 +1,145 @@
+package com.it342.g1.backend.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory sessions for opaque-token mode. Tokens are 144 random bits, base64url
+ * encoded (24 chars). Sessions are spread over independent segments by token hash so
+ * the sweeper and heavy login bursts never contend on a single map. Expiry slides: each
+ * successful lookup pushes it out by the idle timeout, up to the absolute lifetime, which is
+ * the access-token lifetime (jwt.expiration) so both token modes renew through /api/auth/refresh
+ * on the same schedule. The idle timeout only matters while it is shorter than that lifetime.
+ * Entries are flat (ids, timestamps and the username) so the layout can move to an
+ * off-heap map without changing callers.
+ */
+@Component
+public class SessionStore {
+
+    private static final int TOKEN_BYTES = 18;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStore.class);
+
+    @Value("${auth.opaque.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    @Value("${jwt.expiration}")
+    private volatile long maxLifetimeMs;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Segment[] segments;
+
+    public SessionStore(@Value("${auth.opaque.segments:16}") int segmentCount) {
+        segments = new Segment[Integer.highestOneBit(Math.max(1, segmentCount))];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    public static final class Session {
+        private final long userId;
+        private final String username;
+        private final long generation;
+        private final long absoluteExpiry;
+        private volatile long expiresAt;
+
+        Session(long userId, String username, long generation, long expiresAt, long absoluteExpiry) {
+            this.userId = userId;
+            this.username = username;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+            this.absoluteExpiry = absoluteExpiry;
+        }
+
+        public long getUserId() { return userId; }
+        public String getUsername() { return username; }
+        public long getGeneration() { return generation; }
+    }
+
+    private static final class Segment {
+        final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    }
+
+    @PostConstruct
+    void init() {
+        checkIdleTimeout();
+    }
+
+    // generation is the user's token generation at login; see TokenGenerations
+    public String create(String username, Long userId, long generation) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        long absoluteExpiry = now + maxLifetimeMs;
+        segment(token).sessions.put(token, new Session(userId, username, generation,
+                Math.min(now + idleTimeoutMs, absoluteExpiry), absoluteExpiry));
+        return token;
+    }
+
+    // Returns the live session and slides its expiry, or null if unknown or expired
+    public Session touch(String token) {
+        if (token == null) {
+            return null;
+        }
+        Segment segment = segment(token);
+        Session session = segment.sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (session.expiresAt <= now) {
+            segment.sessions.remove(token, session);
+            return null;
+        }
+        session.expiresAt = Math.min(now + idleTimeoutMs, session.absoluteExpiry);
+        return session;
+    }
+
+    // Applies to sessions created from now on
+    public void setMaxLifetimeMs(long maxLifetimeMs) {
+        this.maxLifetimeMs = maxLifetimeMs;
+        checkIdleTimeout();
+    }
+
+    public boolean revoke(String token) {
+        return token != null && segment(token).sessions.remove(token) != null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.sessions.size();
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.opaque.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            segment.sessions.values().removeIf(session -> session.expiresAt <= now);
+        }
+    }
+
+    private void checkIdleTimeout() {
+        if (idleTimeoutMs >= maxLifetimeMs) {
+            log.warn("auth.opaque.idle-timeout-ms ({}) is not below the session lifetime ({} ms); "
+                    + "sessions will only expire at the absolute lifetime", idleTimeoutMs, maxLifetimeMs);
+        }
+    }
+
+    private Segment segment(String token) {
+        int h = token.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+}
@@ -0,0 +1,185 @@
+package com.it342.g1.backend.security;
+
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user token generations for "log out everywhere". Every token carries the generation
+ * its user had when it was issued; revoking bumps users.token_generation, and any token
+ * with an older generation is rejected from then on. That costs one entry per revoking
+ * user instead of one per revoked token.
+ *
+ * Users who never revoked have generation 0 and are not stored, so the map only holds
+ * the few that did. It is an open-addressing long->long table that is replaced as a whole
+ * on every change: revocations are rare, and lookups on the token path stay a lock-free,
+ * allocation-free probe. Revocations made through this instance apply immediately; those
+ * made elsewhere (other instances, SQL) are picked up by the periodic reload. Generations
+ * only grow, so every merge keeps the larger value.
+ */
+@Component
+public class TokenGenerations {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenGenerations.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    private volatile Table table = Table.EMPTY;
+
+    // Immutable snapshot; key 0 marks a free slot (user ids are positive)
+    private static final class Table {
+        static final Table EMPTY = new Table(new long[1], new long[1], 0);
+
+        final long[] keys;
+        final long[] values;
+        final int size;
+
+        Table(long[] keys, long[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        long get(long userId) {
+            int mask = keys.length - 1;
+            for (int i = slot(userId, mask); ; i = (i + 1) & mask) {
+                long key = keys[i];
+                if (key == userId) {
+                    return values[i];
+                }
+                if (key == 0) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    // After every shard schema is in place, and before the readiness probe lets traffic in
+    @EventListener(ContextRefreshedEvent.class)
+    public void onStartup() {
+        reload();
+    }
+
+    // Generation a token must carry to be valid; 0 for users who never revoked
+    public long current(long userId) {
+        Table snapshot = table;
+        return snapshot.size == 0 ? 0 : snapshot.get(userId);
+    }
+
+    // Invalidates every token issued to the user so far; empty if the user does not exist
+    public Optional<Long> revokeAll(long userId) {
+        Optional<Long> generation = userRepository.revokeTokens(userId);
+        generation.ifPresent(g -> merge(Map.of(userId, g)));
+        return generation;
+    }
+
+    // Re-reads the given users on the current shard after a set-based update bumped their generations
+    public void refresh(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String placeholders = userIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        merge(query("SELECT user_id, token_generation FROM users WHERE user_id IN (" + placeholders + ") "
+                + "AND token_generation > 0", userIds.toArray()));
+    }
+
+    // Picks up revocations made by other instances; archived users are included so a restore cannot revive tokens
+    @Scheduled(fixedDelayString = "${auth.token-generation.refresh-ms:30000}", initialDelayString = "${auth.token-generation.refresh-ms:30000}")
+    public void reload() {
+        Map<Long, Long> loaded = new HashMap<>();
+        try {
+            shardRouter.forEachShard(shard -> {
+                loaded.putAll(query("SELECT user_id, token_generation FROM users_archive WHERE token_generation > 0"));
+                loaded.putAll(query("SELECT user_id, token_generation FROM users WHERE token_generation > 0"));
+            });
+        } catch (DataAccessException e) {
+            log.error("Token generation reload failed; keeping {} known generations", table.size, e);
+            return;
+        }
+        merge(loaded);
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private Map<Long, Long> query(String sql, Object... args) {
+        Map<Long, Long> rows = new HashMap<>();
+        jdbc.query(sql, rs -> {
+            rows.put(rs.getLong(1), rs.getLong(2));
+        }, args);
+        return rows;
+    }
+
+    // Copy-on-write: builds the next table with both old and new entries, then publishes it
+    synchronized void merge(Map<Long, Long> updates) {
+        Table current = table;
+        int capacity = Integer.highestOneBit(Math.max(4, (current.size + updates.size()) * 2 - 1)) << 1;
+        long[] keys = new long[capacity];
+        long[] values = new long[capacity];
+        int size = 0;
+        for (int i = 0; i < current.keys.length; i++) {
+            if (current.keys[i] != 0) {
+                size += put(keys, values, current.keys[i], current.values[i]);
+            }
+        }
+        for (Map.Entry<Long, Long> update : updates.entrySet()) {
+            if (update.getKey() > 0 && update.getValue() > 0) {
+                size += put(keys, values, update.getKey(), update.getValue());
+            }
+        }
+        table = new Table(keys, values, size);
+    }
+
+    // 1 if the key was new, 0 if an existing entry was kept or raised
+    private static int put(long[] keys, long[] values, long userId, long generation) {
+        int mask = keys.length - 1;
+        for (int i = slot(userId, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == 0) {
+                keys[i] = userId;
+                values[i] = generation;
+                return 1;
+            }
+            if (keys[i] == userId) {
+                values[i] = Math.max(values[i], generation);
+                return 0;
+            }
+        }
+    }
+
+    // Shard-tagged ids differ mostly in high bits, so mix them down before masking
+    private static int slot(long userId, int mask) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
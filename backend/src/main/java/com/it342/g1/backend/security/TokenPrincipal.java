@@ -0,0 +1,33 @@
+package com.it342.g1.backend.security;
+
+import java.security.Principal;
+
+// Caller of /api/user/** as established by JwtAuthenticationFilter from a single verification of the access token
+public final class TokenPrincipal implements Principal {
+
+    private final Long userId;
+    private final String username;
+
+    public TokenPrincipal(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -1,10 +1,15 @@
 package com.it342.g1.backend.security;
 
+import com.it342.g1.backend.jfr.TokenVerificationEvent;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.util.Date;
 
@@ -15,20 +20,77 @@ public class TokenProvider {
     private String jwtSecret;
     
     @Value("${jwt.expiration}")
-    private Long jwtExpiration;
+    private volatile long jwtExpiration;
+    
+    // "jwt" (self-contained signed tokens) or "opaque" (random ids backed by SessionStore)
+    @Value("${auth.token-mode:jwt}")
+    private String tokenMode;
+    
+    // Verify our own token layout without jjwt's generic parser; jjwt still handles anything else
+    @Value("${jwt.fast-verify.enabled:true}")
+    private boolean fastVerifyEnabled;
+    
+    @Autowired
+    private SessionStore sessionStore;
+    
+    @Autowired
+    private TokenGenerations tokenGenerations;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private SecretKey signingKey;
+    private FastTokenVerifier fastVerifier;
+    private Counter fastAccepted;
+    private Counter fastRejected;
+    private Counter fastFallback;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        fastVerifier = fastVerifyEnabled ? new FastTokenVerifier(signingKey, tokenGenerations) : null;
+        fastAccepted = fastVerifyCounter("accepted");
+        fastRejected = fastVerifyCounter("rejected");
+        fastFallback = fastVerifyCounter("fallback");
+    }
+    
+    // Share of tokens the fast path decides = (accepted + rejected) / all; fallbacks go through jjwt
+    private Counter fastVerifyCounter(String result) {
+        return Counter.builder("auth.token.fast-verify").tag("result", result).register(meterRegistry);
+    }
+    
+    private boolean opaque() {
+        return "opaque".equalsIgnoreCase(tokenMode);
+    }
     
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
+    }
+    
+    public long getExpirationMs() {
+        return jwtExpiration;
+    }
+    
+    // Lifetime of tokens issued from now on; tokens already issued keep their expiry
+    public void setExpirationMs(long expirationMs) {
+        jwtExpiration = expirationMs;
+        sessionStore.setMaxLifetimeMs(expirationMs);
     }
     
     // Generate JWT token
     public String generateToken(String username, Long userId) {
+        long generation = tokenGenerations.current(userId);
+        if (opaque()) {
+            return sessionStore.create(username, userId, generation);
+        }
+        
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
         
         return Jwts.builder()
                 .subject(username)
                 .claim("userId", userId)
+                .claim("gen", generation)
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(getSigningKey())
@@ -37,34 +99,118 @@ public class TokenProvider {
     
     // Validate JWT token
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+        TokenVerificationEvent event = new TokenVerificationEvent();
+        event.begin();
+        Long userId = verifiedUserId(token);
+        event.outcome = userId != null ? "valid" : "invalid";
+        event.userId = userId != null ? userId : 0;
+        event.commit();
+        return userId != null;
+    }
+    
+    // Caller identity from one verification of the token, or null if it is invalid, expired or revoked
+    public TokenPrincipal authenticate(String token) {
+        TokenVerificationEvent event = new TokenVerificationEvent();
+        event.begin();
+        TokenPrincipal principal = verifiedPrincipal(token);
+        event.outcome = principal != null ? "valid" : "invalid";
+        event.userId = principal != null ? principal.getUserId() : 0;
+        event.commit();
+        return principal;
+    }
+    
+    // User id carried by a valid token, or null if the token is invalid
+    private Long verifiedUserId(String token) {
+        if (opaque()) {
+            SessionStore.Session session = currentSession(token);
+            return session == null ? null : session.getUserId();
         }
+        long userId = fastUserId(token);
+        if (userId == FastTokenVerifier.INVALID) {
+            return null;
+        }
+        if (userId != FastTokenVerifier.FALLBACK) {
+            return userId;
+        }
+        Claims claims = currentClaims(token);
+        return claims == null ? null : userIdOf(claims);
     }
     
-    // Get username from token
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.getSubject();
+    // Same checks as verifiedUserId, keeping the subject the fast path has already decoded
+    private TokenPrincipal verifiedPrincipal(String token) {
+        if (opaque()) {
+            SessionStore.Session session = currentSession(token);
+            return session == null ? null : new TokenPrincipal(session.getUserId(), session.getUsername());
+        }
+        long userId = fastUserId(token);
+        if (userId == FastTokenVerifier.INVALID) {
+            return null;
+        }
+        if (userId != FastTokenVerifier.FALLBACK) {
+            return new TokenPrincipal(userId, fastVerifier.lastSubject());
+        }
+        Claims claims = currentClaims(token);
+        return claims == null ? null : new TokenPrincipal(userIdOf(claims), claims.getSubject());
+    }
+    
+    // Fast-path verdict on the token, counted by result; FALLBACK when the fast path is off
+    private long fastUserId(String token) {
+        if (fastVerifier == null) {
+            return FastTokenVerifier.FALLBACK;
+        }
+        long userId = fastVerifier.userId(token);
+        if (userId == FastTokenVerifier.INVALID) {
+            fastRejected.increment();
+        } else if (userId == FastTokenVerifier.FALLBACK) {
+            fastFallback.increment();
+        } else {
+            fastAccepted.increment();
+        }
+        return userId;
     }
     
-    // Get user ID from token
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
+    // Claims of a correctly signed, unexpired token of the user's current generation, or null
+    private Claims currentClaims(String token) {
+        try {
+            Claims claims = Jwts.parser()
                 .verifyWith(getSigningKey())
                 .build()
                 .parseSignedClaims(token)
                 .getPayload();
-        return claims.get("userId", Long.class);
+            Long userId = claims.get("userId", Long.class);
+            // Tokens issued before generations existed have none and count as generation 0
+            Long generation = claims.get("gen", Long.class);
+            if (userId != null && (generation != null ? generation : 0L) < tokenGenerations.current(userId)) {
+                return null;
+            }
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private static Long userIdOf(Claims claims) {
+        Long userId = claims.get("userId", Long.class);
+        return userId != null ? userId : 0L;
+    }
+    
+    // Revoke a token immediately; JWTs stay valid until they expire
+    public boolean revokeToken(String token) {
+        return opaque() && sessionStore.revoke(token);
+    }
+    
+    // Revoke every token issued to the user so far, JWTs included; false if the user does not exist
+    public boolean revokeAllTokens(Long userId) {
+        return tokenGenerations.revokeAll(userId).isPresent();
+    }
+    
+    // Live session whose user has not revoked it since login, or null
+    private SessionStore.Session currentSession(String token) {
+        SessionStore.Session session = sessionStore.touch(token);
+        if (session != null && session.getGeneration() < tokenGenerations.current(session.getUserId())) {
+            sessionStore.revoke(token);
+            return null;
+        }
+        return session;
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.it342.g1.backend.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// BCrypt whose cost for new hashes can change at runtime; existing hashes carry their own cost and keep matching
+public class TunableBCryptPasswordEncoder implements PasswordEncoder {
+
+    private volatile int strength;
+    private volatile BCryptPasswordEncoder delegate;
+
+    public TunableBCryptPasswordEncoder(int strength) {
+        setStrength(strength);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public synchronized void setStrength(int strength) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    // True for hashes made at a lower cost than the current one
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
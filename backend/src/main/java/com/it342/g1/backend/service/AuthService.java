@@ -1,13 +1,38 @@
 package com.it342.g1.backend.service;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.it342.g1.backend.analytics.LoginAnalytics;
+import com.it342.g1.backend.dto.LoginAttemptState;
 import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.exception.AccountConflictException;
+import com.it342.g1.backend.exception.AccountDisabledException;
+import com.it342.g1.backend.exception.AccountLockedException;
+import com.it342.g1.backend.exception.AuthValidationException;
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import com.it342.g1.backend.jfr.AuthEvent;
+import com.it342.g1.backend.jfr.LoginEvent;
+import com.it342.g1.backend.jfr.PasswordHashEvent;
+import com.it342.g1.backend.jfr.RegistrationEvent;
+import com.it342.g1.backend.outbox.Outbox;
 import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.security.BreachedPasswordIndex;
+import com.it342.g1.backend.security.TokenPrincipal;
 import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.sharding.ShardRouter;
+import com.it342.g1.backend.timing.RequestTiming;
+import com.it342.g1.backend.util.Identifiers;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -23,6 +48,43 @@ public class AuthService {
     @Autowired
     private TokenProvider tokenProvider;
     
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private UserArchiveService userArchiveService;
+    
+    @Autowired
+    private LoginAnalytics loginAnalytics;
+    
+    @Autowired
+    private BreachedPasswordIndex breachedPasswordIndex;
+    
+    @Autowired
+    private Outbox outbox;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${auth.refresh.activity-interval-ms:86400000}")
+    private long activityIntervalMs;
+
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    private static final int MAX_FAILED_ATTEMPTS = 5;
+    private static final int LOCK_MINUTES = 15;
+    
     private static final Pattern USERNAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_]{3,20}$");
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
     private static final Pattern PASSWORD_PATTERN = Pattern.compile(
@@ -31,119 +93,279 @@ public class AuthService {
     
     // Register user
     public String registerUser(String username, String email, String password) {
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
+        try {
+            event.userId = createUser(username, email, password).getUserId();
+            event.outcome = "success";
+            return "User registered successfully";
+        } catch (RuntimeException e) {
+            event.outcome = AuthEvent.outcomeOf(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+    
+    private User createUser(String username, String email, String password) {
+        // A missing field fails validation like a malformed one instead of reaching the pattern matchers
+        if (username == null) {
+            throw AuthValidationException.INVALID_USERNAME;
+        }
+        if (email == null) {
+            throw AuthValidationException.INVALID_EMAIL;
+        }
+        if (password == null) {
+            throw AuthValidationException.WEAK_PASSWORD;
+        }
+        
         // Validate username
         if (!USERNAME_PATTERN.matcher(username).matches()) {
-            throw new IllegalArgumentException("Username must be 3-20 characters, alphanumeric and underscore only");
+            throw AuthValidationException.INVALID_USERNAME;
         }
         
         // Validate email
         if (!EMAIL_PATTERN.matcher(email).matches()) {
-            throw new IllegalArgumentException("Invalid email format");
+            throw AuthValidationException.INVALID_EMAIL;
         }
         
-        // Check username uniqueness
-        if (userRepository.existsByUsername(username)) {
-            throw new IllegalArgumentException("Username already exists");
+        // Check username uniqueness (case-insensitive)
+        String usernameNormalized = Identifiers.normalize(username);
+        if (RequestTiming.time("lookup", () -> userRepository.existsByUsernameNormalized(usernameNormalized)
+                || userArchiveService.isUsernameArchived(usernameNormalized))) {
+            throw AccountConflictException.USERNAME_TAKEN;
         }
         
-        // Check email uniqueness
-        if (userRepository.existsByEmail(email)) {
-            throw new IllegalArgumentException("Email already exists");
+        // Check email uniqueness (case-insensitive)
+        String emailNormalized = Identifiers.normalize(email);
+        if (RequestTiming.time("lookup", () -> userRepository.existsByEmailNormalized(emailNormalized)
+                || userArchiveService.isEmailArchived(emailNormalized))) {
+            throw AccountConflictException.EMAIL_TAKEN;
         }
         
         // Validate password strength
         if (!PASSWORD_PATTERN.matcher(password).matches()) {
-            throw new IllegalArgumentException(
-                "Password must be at least 8 characters with uppercase, lowercase, number, and special character"
-            );
+            throw AuthValidationException.WEAK_PASSWORD;
+        }
+        
+        // Reject passwords known from breach corpora (offline index, no network call)
+        if (breachedPasswordIndex.isBreached(password)) {
+            throw AuthValidationException.BREACHED_PASSWORD;
         }
         
         // Create new user
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password)); // Hash password
+        user.setPassword(hashPassword(password)); // Hash password
         user.setIsActive(true);
         user.setFailedLoginAttempts(0);
         
-        // Save user
-        userRepository.save(user);
+        // Save user (on its home shard when sharding is enabled) together with its outbox events,
+        // so the welcome email and user.created event are sent if and only if the insert commits
+        try {
+            RequestTiming.time("insert", () -> shardRouter.register(user, () -> transactionTemplate.execute(status -> {
+                User saved = userRepository.save(user);
+                Map<String, Object> payload = Map.of(
+                        "userId", saved.getUserId(), "username", saved.getUsername(), "email", saved.getEmail());
+                outbox.record(Outbox.USER_CREATED, saved.getUserId(), payload);
+                outbox.record(Outbox.WELCOME_EMAIL, saved.getUserId(), payload);
+                return saved;
+            })));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent registration took the username or email after the checks above; the unique indexes decide
+            throw userRepository.existsByUsernameNormalized(usernameNormalized)
+                    ? AccountConflictException.USERNAME_TAKEN
+                    : AccountConflictException.EMAIL_TAKEN;
+        }
         
-        return "User registered successfully";
+        return user;
     }
     
     // Login user
     public AuthResponse loginUser(String identifier, String password) {
-        // Find user by username or email
-        Optional<User> userOptional = userRepository.findByUsername(identifier);
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        try {
+            AuthResponse response = authenticate(identifier, password, event);
+            event.outcome = "success";
+            return response;
+        } catch (RuntimeException e) {
+            event.outcome = AuthEvent.outcomeOf(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+    
+    private AuthResponse authenticate(String identifier, String password, LoginEvent event) {
+        // Nothing to look up or hash without both fields; answered like any other bad login
+        if (identifier == null || identifier.isBlank() || password == null) {
+            loginAnalytics.recordFailure();
+            throw InvalidCredentialsException.INVALID_CREDENTIALS;
+        }
+        
+        Optional<User> userOptional = RequestTiming.time("lookup", () -> findForLogin(identifier));
+        
+        // Dormant accounts live in users_archive and are only restored once the password matches
+        boolean passwordVerified = false;
         if (userOptional.isEmpty()) {
-            userOptional = userRepository.findByEmail(identifier);
+            userOptional = RequestTiming.time("lookup", () -> userArchiveService.restore(identifier,
+                    archived -> passwordMatches(archived.getUserId(), archived.getPassword(), password)));
+            passwordVerified = userOptional.isPresent();
         }
         
         if (userOptional.isEmpty()) {
-            throw new IllegalArgumentException("Invalid credentials");
+            loginAnalytics.recordFailure();
+            throw InvalidCredentialsException.INVALID_CREDENTIALS;
         }
         
         User user = userOptional.get();
+        event.userId = user.getUserId();
         
         // Check if account is locked
         if (user.getAccountLockedUntil() != null && 
             user.getAccountLockedUntil().isAfter(LocalDateTime.now())) {
-            throw new IllegalArgumentException("Account is locked. Try again later.");
+            loginAnalytics.recordFailure();
+            throw AccountLockedException.LOCKED;
         }
         
         // Verify password
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            // Increment failed attempts
-            user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
+        if (!passwordVerified && !passwordMatches(user.getUserId(), user.getPassword(), password)) {
+            // Increment failed attempts and lock after 5, atomically in the database
+            LocalDateTime now = LocalDateTime.now();
+            Optional<LoginAttemptState> state = RequestTiming.time("save", () -> userRepository.recordFailedLogin(
+                    user.getUserId(), MAX_FAILED_ATTEMPTS, now, now.plusMinutes(LOCK_MINUTES)));
             
-            // Lock account after 5 failed attempts
-            if (user.getFailedLoginAttempts() >= 5) {
-                user.setAccountLockedUntil(LocalDateTime.now().plusMinutes(15));
-                userRepository.save(user);
-                throw new IllegalArgumentException("Account locked due to multiple failed attempts");
+            loginAnalytics.recordFailure();
+            if (state.isEmpty()) {
+                // A concurrent failure locked the account after we read it
+                throw AccountLockedException.LOCKED;
             }
-            
-            userRepository.save(user);
-            throw new IllegalArgumentException("Invalid credentials");
+            if (state.get().getFailedLoginAttempts() >= MAX_FAILED_ATTEMPTS) {
+                loginAnalytics.recordLockout();
+                throw AccountLockedException.LOCKED_NOW;
+            }
+            throw InvalidCredentialsException.INVALID_CREDENTIALS;
+        }
+        
+        // Admin holds are only revealed to callers who know the password
+        if (Boolean.FALSE.equals(user.getIsActive())) {
+            loginAnalytics.recordFailure();
+            throw AccountDisabledException.DEACTIVATED;
+        }
+        if (Boolean.TRUE.equals(user.getMustResetPassword())) {
+            loginAnalytics.recordFailure();
+            throw AccountDisabledException.PASSWORD_RESET_REQUIRED;
         }
         
         // Reset failed attempts on successful login
-        user.setFailedLoginAttempts(0);
-        user.setAccountLockedUntil(null);
-        user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
+        if (RequestTiming.time("save", () -> userRepository.recordSuccessfulLogin(user.getUserId(), LocalDateTime.now())) == 0) {
+            // Locked by a concurrent failure after we read it; the lock wins
+            loginAnalytics.recordFailure();
+            throw AccountLockedException.LOCKED;
+        }
+        loginAnalytics.recordLogin(user.getUserId());
         
-        // Generate JWT token
-        String token = tokenProvider.generateToken(user.getUsername(), user.getUserId());
+        // Generate JWT token, plus the refresh token that renews it without the password
+        String token = RequestTiming.time("token", () -> tokenProvider.generateToken(user.getUsername(), user.getUserId()));
+        String refreshToken = RequestTiming.time("save", () -> refreshTokenService.issue(user.getUserId(), user.getUsername()));
         
         // Return token and user info
-        return new AuthResponse(token, user.getUsername(), user.getEmail());
+        return new AuthResponse(token, refreshToken, tokenProvider.getExpirationMs() / 1000,
+                user.getUsername(), user.getEmail());
+    }
+    
+    // New access token and rotated refresh token; no password, no BCrypt, no user row read
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = RequestTiming.time("lookup", () -> refreshTokenService.rotate(refreshToken));
+        recordActivity(rotation.getUserId());
+        String token = RequestTiming.time("token", () -> tokenProvider.generateToken(rotation.getUsername(), rotation.getUserId()));
+        return new AuthResponse(token, rotation.getRefreshToken(), tokenProvider.getExpirationMs() / 1000,
+                rotation.getUsername(), null);
+    }
+    
+    // A refresh proves the user is still around: keep last_login moving so the account is not archived
+    // as dormant while its refresh tokens still work, and count the user as active
+    private void recordActivity(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        RequestTiming.time("save", () -> userRepository.touchLastLogin(userId, now,
+                now.minus(Duration.ofMillis(activityIntervalMs))));
+        loginAnalytics.recordActivity(userId);
+    }
+    
+    private String hashPassword(String password) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        String hash = RequestTiming.time("bcrypt", () -> passwordEncoder.encode(password));
+        event.outcome = "encoded";
+        event.commit();
+        return hash;
+    }
+    
+    private boolean passwordMatches(Long userId, String passwordHash, String password) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        boolean matches = RequestTiming.time("bcrypt", () -> passwordEncoder.matches(password, passwordHash));
+        event.outcome = matches ? "match" : "mismatch";
+        event.userId = userId;
+        event.commit();
+        return matches;
     }
     
-    // Logout user (can be extended with token blacklist)
-    public String logoutUser(String token) {
+    // Find user by username or email, ignoring case
+    private Optional<User> findForLogin(String identifier) {
+        Optional<User> userOptional = userService.findByUsername(identifier);
+        if (userOptional.isEmpty()) {
+            userOptional = userService.findByEmail(identifier);
+        }
+        return userOptional;
+    }
+    
+    // Logout user; the refresh token, when given, is revoked even if the access token has already expired
+    public String logoutUser(String token, String refreshToken) {
+        boolean refreshRevoked = refreshToken != null && refreshTokenService.revoke(refreshToken);
         if (!tokenProvider.validateToken(token)) {
-            throw new IllegalArgumentException("Invalid token");
+            if (refreshRevoked) {
+                return "Logged out successfully";
+            }
+            throw InvalidCredentialsException.INVALID_TOKEN;
         }
-        // In a production app, add token to blacklist here
+        tokenProvider.revokeToken(token);
         return "Logged out successfully";
     }
     
-    // Inner class for login response
+    // Log out everywhere: every token issued to the caller so far stops working, this one included
+    public String logoutAllSessions(String token) {
+        TokenPrincipal principal = tokenProvider.authenticate(token);
+        if (principal == null || !tokenProvider.revokeAllTokens(principal.getUserId())) {
+            throw InvalidCredentialsException.INVALID_TOKEN;
+        }
+        return "Logged out of all sessions";
+    }
+    
+    // Inner class for login response; refresh responses carry no email
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class AuthResponse {
         private String token;
+        private String refreshToken;
+        private Long expiresIn;
         private String username;
         private String email;
         
-        public AuthResponse(String token, String username, String email) {
+        public AuthResponse(String token, String refreshToken, Long expiresIn, String username, String email) {
             this.token = token;
+            this.refreshToken = refreshToken;
+            this.expiresIn = expiresIn;
             this.username = username;
             this.email = email;
         }
         
         // Getters
         public String getToken() { return token; }
+        public String getRefreshToken() { return refreshToken; }
+        // Access token lifetime in seconds
+        public Long getExpiresIn() { return expiresIn; }
         public String getUsername() { return username; }
         public String getEmail() { return email; }
     }
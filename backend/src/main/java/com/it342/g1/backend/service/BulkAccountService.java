@@ -0,0 +1,282 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.dto.BulkAccountFilter;
+import com.it342.g1.backend.security.TokenGenerations;
+import com.it342.g1.backend.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Admin unlock / deactivate / force-reset over many accounts at once. A job selects its
+ * accounts by id list or by filter and applies one set-based UPDATE per chunk of ids, each
+ * in its own short transaction, without loading User entities. The filter is re-checked
+ * inside the UPDATE, so rows that changed after the chunk was selected (e.g. a user who
+ * logged in and cleared their own lock) are left alone. Jobs run one at a time in the
+ * background; progress is kept in memory for the most recent jobs.
+ */
+@Service
+public class BulkAccountService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkAccountService.class);
+
+    private static final int JOBS_KEPT = 50;
+
+    public enum Operation {
+        UNLOCK("failed_login_attempts = 0, account_locked_until = NULL", false),
+        // Deactivated and force-reset accounts also lose every token they hold
+        DEACTIVATE("is_active = FALSE, token_generation = token_generation + 1", true),
+        FORCE_RESET("must_reset_password = TRUE, token_generation = token_generation + 1", true);
+
+        private final String assignments;
+        private final boolean revokesTokens;
+
+        Operation(String assignments, boolean revokesTokens) {
+            this.assignments = assignments;
+            this.revokesTokens = revokesTokens;
+        }
+
+        // Accepts path-style names such as "force-reset"
+        public static Optional<Operation> parse(String name) {
+            try {
+                return Optional.of(valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_')));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TokenGenerations tokenGenerations;
+
+    @Value("${bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${bulk.pause-ms:50}")
+    private long pauseMs;
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService worker;
+
+    private final Map<String, Job> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > JOBS_KEPT;
+        }
+    });
+
+    @PostConstruct
+    void init() {
+        jdbc = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-account-ops");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // Queues a job and returns its initial status; jobs run one after another
+    public Map<String, Object> submit(Operation operation, BulkAccountFilter filter) {
+        Job job = new Job(operation, filter, LocalDateTime.now());
+        jobs.put(job.id, job);
+        worker.execute(() -> run(job));
+        return job.status();
+    }
+
+    public Optional<Map<String, Object>> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::status);
+    }
+
+    public List<Map<String, Object>> recentJobs() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(Job::status).collect(Collectors.toList());
+        }
+    }
+
+    void run(Job job) {
+        job.state = "RUNNING";
+        try {
+            Criteria criteria = new Criteria(job.filter, job.submittedAt);
+            if (job.filter.getUserIds() != null && !job.filter.getUserIds().isEmpty()) {
+                byShard(job.filter.getUserIds()).forEach((shard, userIds) ->
+                        shardRouter.onShard(shard, () -> applyToIds(job, criteria, userIds)));
+            } else {
+                shardRouter.forEachShard(shard -> applyToMatches(job, criteria));
+            }
+            job.state = "COMPLETED";
+            log.info("Bulk {} finished: {}", job.operation, job.status());
+        } catch (RuntimeException e) {
+            job.state = "FAILED";
+            job.error = String.valueOf(e.getMessage());
+            log.error("Bulk {} stopped after {} accounts", job.operation, job.updated.get(), e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    // Explicit id list: chunk it in id order, no scan needed
+    private Void applyToIds(Job job, Criteria criteria, List<Long> userIds) {
+        for (int from = 0; from < userIds.size(); from += chunkSize) {
+            update(job, criteria, userIds.subList(from, Math.min(from + chunkSize, userIds.size())));
+        }
+        return null;
+    }
+
+    // Filter only: keyset-paged id scan on the current shard
+    private void applyToMatches(Job job, Criteria criteria) {
+        long afterUserId = 0;
+        while (true) {
+            List<Object> args = new ArrayList<>();
+            args.add(afterUserId);
+            args.addAll(criteria.args);
+            args.add(chunkSize);
+            List<Long> chunk = jdbc.queryForList("SELECT user_id FROM users WHERE user_id > ?" + criteria.sql
+                    + " ORDER BY user_id LIMIT ?", Long.class, args.toArray());
+            if (chunk.isEmpty()) {
+                return;
+            }
+            update(job, criteria, chunk);
+            afterUserId = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    private void update(Job job, Criteria criteria, List<Long> userIds) {
+        String placeholders = userIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>(userIds);
+        args.addAll(criteria.args);
+        Integer updated = transactionTemplate.execute(status -> jdbc.update(
+                "UPDATE users SET " + job.operation.assignments + ", version = version + 1 "
+                        + "WHERE user_id IN (" + placeholders + ")" + criteria.sql, args.toArray()));
+        if (job.operation.revokesTokens && updated != null && updated > 0) {
+            tokenGenerations.refresh(userIds);
+        }
+        job.updated.addAndGet(updated == null ? 0 : updated);
+        job.scanned.addAndGet(userIds.size());
+        job.chunks.incrementAndGet();
+        pause();
+    }
+
+    private Map<Integer, List<Long>> byShard(List<Long> userIds) {
+        TreeSet<Long> sorted = new TreeSet<>(userIds);
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        if (shardRouter.isEnabled()) {
+            shardRouter.shardsForUserIds(sorted).forEach((userId, shard) ->
+                    byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(userId));
+            byShard.values().forEach(Collections::sort);
+        } else {
+            byShard.put(ShardRouter.DIRECTORY_SHARD, new ArrayList<>(sorted));
+        }
+        return byShard;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk operation interrupted", e);
+        }
+    }
+
+    // WHERE fragment (each clause prefixed with AND) for the non-id criteria of a filter
+    private static class Criteria {
+        final String sql;
+        final List<Object> args = new ArrayList<>();
+
+        Criteria(BulkAccountFilter filter, LocalDateTime now) {
+            StringBuilder where = new StringBuilder();
+            if (filter.getCurrentlyLocked() != null) {
+                where.append(filter.getCurrentlyLocked()
+                        ? " AND account_locked_until > ?"
+                        : " AND (account_locked_until IS NULL OR account_locked_until <= ?)");
+                args.add(now);
+            }
+            if (filter.getLockedUntilAfter() != null) {
+                where.append(" AND account_locked_until >= ?");
+                args.add(filter.getLockedUntilAfter());
+            }
+            if (filter.getLockedUntilBefore() != null) {
+                where.append(" AND account_locked_until < ?");
+                args.add(filter.getLockedUntilBefore());
+            }
+            if (filter.getActive() != null) {
+                where.append(" AND is_active = ?");
+                args.add(filter.getActive());
+            }
+            sql = where.toString();
+        }
+    }
+
+    static class Job {
+        final String id = UUID.randomUUID().toString();
+        final Operation operation;
+        final BulkAccountFilter filter;
+        final LocalDateTime submittedAt;
+        final AtomicLong scanned = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong chunks = new AtomicLong();
+        volatile String state = "QUEUED";
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(Operation operation, BulkAccountFilter filter, LocalDateTime submittedAt) {
+            this.operation = operation;
+            this.filter = filter;
+            this.submittedAt = submittedAt;
+        }
+
+        Map<String, Object> status() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("jobId", id);
+            status.put("operation", operation);
+            status.put("state", state);
+            status.put("scanned", scanned.get());
+            status.put("updated", updated.get());
+            status.put("chunks", chunks.get());
+            status.put("submittedAt", submittedAt.toString());
+            status.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+            status.put("error", error);
+            return status;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.exception.AuthException;
+import com.it342.g1.backend.exception.IdempotencyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried writes safe via the Idempotency-Key header. The first request with a key
+ * runs and its outcome (the response, or an expected AuthException) is kept for
+ * idempotency.ttl-ms in a bounded, insertion-ordered cache; retries get the same outcome
+ * without running the action again, and retries that arrive while it is still running
+ * wait for it. A key reused with a different request fingerprint is rejected. Unexpected
+ * failures are not remembered, so the next retry runs the action afresh.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // Fingerprints may cover secrets such as a registration password; keyed with a random per-process
+    // key, a cached fingerprint cannot be brute-forced offline back to its input
+    private static final SecretKeySpec FINGERPRINT_KEY = new SecretKeySpec(randomKey(), "HmacSHA256");
+
+    @Value("${idempotency.ttl-ms:3600000}")
+    private long ttlMs;
+
+    @Value("${idempotency.in-flight-wait-ms:30000}")
+    private long inFlightWaitMs;
+
+    private final Map<String, Entry> entries;
+
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<ResponseEntity<?>> outcome = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private volatile int maxEntries;
+
+    public IdempotencyService(@Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    // Runtime resize; a smaller bound evicts the oldest completed keys right away
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        synchronized (entries) {
+            evictOverflow();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Runs action once per (scope, key); without a key it simply runs
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String cacheKey = scope + '\u0000' + key;
+        while (true) {
+            Entry mine = new Entry(fingerprint);
+            Entry existing = claim(cacheKey, mine);
+            if (existing == null) {
+                return lead(cacheKey, mine, action);
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw IdempotencyException.KEY_REUSED;
+            }
+            ResponseEntity<?> replayed = follow(existing);
+            if (replayed != null) {
+                return replayed;
+            }
+            // The first attempt failed unexpectedly and was forgotten; try again ourselves
+        }
+    }
+
+    // Keyed digest of the parts that make two requests "the same"; stable for the life of the process
+    public static String fingerprint(Object... parts) {
+        try {
+            Mac hmac = Mac.getInstance(FINGERPRINT_KEY.getAlgorithm());
+            hmac.init(FINGERPRINT_KEY);
+            for (Object part : parts) {
+                hmac.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                hmac.update((byte) 0);
+            }
+            return Base64.getEncoder().encodeToString(hmac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+    }
+
+    private Entry claim(String cacheKey, Entry mine) {
+        synchronized (entries) {
+            Entry existing = entries.get(cacheKey);
+            if (existing != null && existing.expiresAt > System.currentTimeMillis()) {
+                return existing;
+            }
+            // Re-inserted rather than overwritten so an expired key's fresh entry counts as newest
+            entries.remove(cacheKey);
+            entries.put(cacheKey, mine);
+            evictOverflow();
+            return null;
+        }
+    }
+
+    // Drops the oldest completed entries past the bound. In-flight entries are skipped: evicting
+    // one would let a retry run the action a second time while the first is still running, so
+    // the cache may exceed its bound by the number of requests currently running.
+    private void evictOverflow() {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (entries.size() > maxEntries && oldest.hasNext()) {
+            if (oldest.next().expiresAt != Long.MAX_VALUE) {
+                oldest.remove();
+            }
+        }
+    }
+
+    private ResponseEntity<?> lead(String cacheKey, Entry mine, Supplier<ResponseEntity<?>> action) {
+        try {
+            ResponseEntity<?> response = action.get();
+            mine.expiresAt = System.currentTimeMillis() + ttlMs;
+            mine.outcome.complete(response);
+            return response;
+        } catch (AuthException e) {
+            mine.expiresAt = System.currentTimeMillis() + ttlMs;
+            mine.outcome.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(cacheKey, mine);
+            }
+            mine.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // The remembered outcome, or null if the first attempt failed and should be retried
+    private ResponseEntity<?> follow(Entry existing) {
+        try {
+            ResponseEntity<?> response = existing.outcome.get(inFlightWaitMs, TimeUnit.MILLISECONDS);
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(response.getBody());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthException) {
+                throw (AuthException) e.getCause();
+            }
+            return null;
+        } catch (TimeoutException e) {
+            throw IdempotencyException.IN_PROGRESS;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw IdempotencyException.IN_PROGRESS;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.entity.RefreshToken;
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import com.it342.g1.backend.repository.RefreshTokenRepository;
+import com.it342.g1.backend.security.TokenGenerations;
+import com.it342.g1.backend.sharding.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Rotating refresh tokens, so a client whose short-lived access token expired gets a new
+ * one without sending the password (and without a BCrypt verify). Tokens are 256 random
+ * bits; only their SHA-256 is stored, which is enough for values that cannot be guessed
+ * and keeps the exchange to one unique-index lookup. Every exchange marks the presented
+ * token used and issues its successor in the same family. Presenting a used token again
+ * means it was copied, so the whole family is deleted and both holders must log in
+ * again; a second exchange within the reuse grace period is instead treated as the same
+ * client racing itself (two tabs) and only refused. Tokens live on the directory shard,
+ * so lookups never need the user's shard and the rebalancer never has to move them.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TokenGenerations tokenGenerations;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${auth.refresh.expiration-ms:2592000000}")
+    private long expirationMs;
+
+    @Value("${auth.refresh.reuse-grace-ms:5000}")
+    private long reuseGraceMs;
+
+    private final SecureRandom random = new SecureRandom();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Result of a successful exchange: who the tokens are for and the successor refresh token
+    public static class Rotation {
+        private final Long userId;
+        private final String username;
+        private final String refreshToken;
+
+        Rotation(Long userId, String username, String refreshToken) {
+            this.userId = userId;
+            this.username = username;
+            this.refreshToken = refreshToken;
+        }
+
+        public Long getUserId() { return userId; }
+        public String getUsername() { return username; }
+        public String getRefreshToken() { return refreshToken; }
+    }
+
+    // First token of a new family, issued at login
+    public String issue(Long userId, String username) {
+        LocalDateTime now = LocalDateTime.now();
+        return onDirectoryShard(() -> store(userId, username, UUID.randomUUID().toString(), now));
+    }
+
+    // Exchanges a refresh token for its successor; the presented token cannot be used again
+    public Rotation rotate(String presented) {
+        if (presented == null || presented.isEmpty() || presented.length() > MAX_TOKEN_LENGTH) {
+            throw InvalidCredentialsException.INVALID_REFRESH_TOKEN;
+        }
+        String tokenHash = hash(presented);
+        LocalDateTime now = LocalDateTime.now();
+        // Failures are returned, not thrown, so a family deleted on reuse stays deleted
+        Object outcome = onDirectoryShard(() -> transactionTemplate.execute(status -> exchange(tokenHash, now)));
+        if (outcome instanceof InvalidCredentialsException) {
+            throw (InvalidCredentialsException) outcome;
+        }
+        return (Rotation) outcome;
+    }
+
+    private Object exchange(String tokenHash, LocalDateTime now) {
+        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(tokenHash);
+        if (found.isEmpty() || !found.get().getExpiresAt().isAfter(now)) {
+            return InvalidCredentialsException.INVALID_REFRESH_TOKEN;
+        }
+        RefreshToken token = found.get();
+        if (token.getTokenGeneration() < tokenGenerations.current(token.getUserId())) {
+            // The user logged out everywhere (or was deactivated) since this family was issued
+            refreshTokenRepository.deleteFamily(token.getFamilyId());
+            return InvalidCredentialsException.INVALID_REFRESH_TOKEN;
+        }
+        if (token.getUsedAt() != null || refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            LocalDateTime usedAt = token.getUsedAt() != null ? token.getUsedAt() : now;
+            if (usedAt.plus(Duration.ofMillis(reuseGraceMs)).isAfter(now)) {
+                return InvalidCredentialsException.INVALID_REFRESH_TOKEN;
+            }
+            refreshTokenRepository.deleteFamily(token.getFamilyId());
+            log.warn("Refresh token reused for user {}; revoked token family {}", token.getUserId(), token.getFamilyId());
+            return InvalidCredentialsException.REFRESH_TOKEN_REUSED;
+        }
+        String successor = store(token.getUserId(), token.getUsername(), token.getFamilyId(), now);
+        return new Rotation(token.getUserId(), token.getUsername(), successor);
+    }
+
+    // Logout: the presented token's whole family stops working; false if it was unknown
+    public boolean revoke(String presented) {
+        if (presented == null || presented.isEmpty() || presented.length() > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        String tokenHash = hash(presented);
+        Integer revoked = onDirectoryShard(() -> transactionTemplate.execute(status ->
+                refreshTokenRepository.findByTokenHash(tokenHash)
+                        .map(token -> refreshTokenRepository.deleteFamily(token.getFamilyId()))
+                        .orElse(0)));
+        return revoked != null && revoked > 0;
+    }
+
+    // Used tokens are kept until they expire so that a late replay is still recognised as reuse
+    @Scheduled(fixedDelayString = "${auth.refresh.sweep-interval-ms:3600000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = onDirectoryShard(() -> transactionTemplate.execute(status ->
+                refreshTokenRepository.deleteExpired(now)));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String store(Long userId, String username, String familyId, LocalDateTime now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = ENCODER.encodeToString(bytes);
+
+        RefreshToken row = new RefreshToken();
+        row.setTokenHash(hash(token));
+        row.setFamilyId(familyId);
+        row.setUserId(userId);
+        row.setUsername(username);
+        row.setTokenGeneration(tokenGenerations.current(userId));
+        row.setCreatedAt(now);
+        row.setExpiresAt(now.plus(Duration.ofMillis(expirationMs)));
+        refreshTokenRepository.save(row);
+        return token;
+    }
+
+    private <T> T onDirectoryShard(Supplier<T> action) {
+        return shardRouter.onShard(ShardRouter.DIRECTORY_SHARD, action);
+    }
+
+    // Hex SHA-256 of the token string
+    static String hash(String token) {
+        byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
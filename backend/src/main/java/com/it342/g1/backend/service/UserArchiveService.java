@@ -0,0 +1,195 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.dto.UserSummary;
+import com.it342.g1.backend.entity.ArchivedUser;
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.exception.AccountConflictException;
+import com.it342.g1.backend.repository.ArchivedUserRepository;
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.sharding.ShardRouter;
+import com.it342.g1.backend.util.Identifiers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the hot users table (and its indexes) sized to active accounts by moving users
+ * that have been dormant past a threshold into users_archive. The job walks each shard
+ * in keyset-paged chunks, one short transaction per chunk with a pause in between.
+ * Archived users are moved back by restore() the first time they log in again.
+ */
+@Service
+public class UserArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserArchiveService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ArchivedUserRepository archivedUserRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.dormant-days:365}")
+    private int dormantDays;
+
+    @Value("${archive.inactive-days:90}")
+    private int inactiveDays;
+
+    @Value("${archive.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${archive.pause-ms:100}")
+    private long pauseMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void archiveDormantUsers() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dormantBefore = now.minusDays(dormantDays);
+        LocalDateTime inactiveBefore = now.minusDays(inactiveDays);
+        int[] archived = new int[1];
+        try {
+            shardRouter.forEachShard(shard -> archived[0] += archiveShard(dormantBefore, inactiveBefore, now));
+            log.info("Archived {} dormant users", archived[0]);
+        } catch (RuntimeException e) {
+            log.error("Dormant user archival stopped after {} users", archived[0], e);
+        }
+    }
+
+    private int archiveShard(LocalDateTime dormantBefore, LocalDateTime inactiveBefore, LocalDateTime now) {
+        int archived = 0;
+        long afterUserId = 0;
+        while (true) {
+            List<Long> chunk = userRepository.findDormantUserIds(
+                    afterUserId, dormantBefore, inactiveBefore, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                return archived;
+            }
+            Integer moved = transactionTemplate.execute(status -> {
+                archivedUserRepository.copyDormantUsers(chunk, dormantBefore, inactiveBefore, now);
+                return archivedUserRepository.deleteArchivedFromUsers(chunk);
+            });
+            archived += moved == null ? 0 : moved;
+            afterUserId = chunk.get(chunk.size() - 1);
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Archival interrupted", e);
+            }
+        }
+    }
+
+    // Move an archived account back into users once the caller has verified it (the password,
+    // on login); empty if the identifier is not archived or the check fails, and the row stays archived
+    public Optional<User> restore(String identifier, Predicate<ArchivedUser> verified) {
+        String key = Identifiers.normalize(identifier);
+        for (int shard : candidateShards(key)) {
+            Optional<ArchivedUser> archived = shardRouter.onShard(shard,
+                    () -> archivedUserRepository.findByIdentifier(key).stream().findFirst());
+            if (archived.isPresent()) {
+                return verified.test(archived.get())
+                        ? shardRouter.onShard(shard, () -> restoreOnCurrentShard(archived.get().getUserId()))
+                        : Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<User> restoreOnCurrentShard(Long userId) {
+        try {
+            transactionTemplate.execute(status -> {
+                if (archivedUserRepository.copyBackToUsers(userId) == 1) {
+                    archivedUserRepository.deleteArchived(userId);
+                }
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Benign only if a concurrent login restored it first; otherwise another account now holds
+            // its username or email and the row stays archived
+            Optional<User> restored = userRepository.findById(userId);
+            if (restored.isPresent()) {
+                log.debug("User {} was already restored", userId);
+                return restored;
+            }
+            log.warn("User {} cannot be restored: its username or email belongs to another account", userId);
+            throw AccountConflictException.EMAIL_TAKEN;
+        }
+        return userRepository.findById(userId);
+    }
+
+    // Archived names stay reserved; with sharding the directory already guarantees that
+    public boolean isUsernameArchived(String usernameNormalized) {
+        return !shardRouter.isEnabled() && archivedUserRepository.existsByUsernameNormalized(usernameNormalized);
+    }
+
+    public boolean isEmailArchived(String emailNormalized) {
+        return !shardRouter.isEnabled() && archivedUserRepository.existsByEmailNormalized(emailNormalized);
+    }
+
+    // Summaries for archived users, looked up on whichever shard holds each id
+    public Map<Long, UserSummary> findSummaries(Collection<Long> userIds) {
+        Map<Integer, List<Long>> byShard = new HashMap<>();
+        if (shardRouter.isEnabled()) {
+            shardRouter.shardsForUserIds(userIds)
+                    .forEach((userId, shard) -> byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(userId));
+        } else {
+            byShard.put(ShardRouter.DIRECTORY_SHARD, new ArrayList<>(userIds));
+        }
+        Map<Long, UserSummary> found = new HashMap<>();
+        byShard.forEach((shard, ids) -> shardRouter.onShard(shard,
+                () -> archivedUserRepository.findSummariesByUserIdIn(ids))
+                .forEach(summary -> found.put(summary.getUserId(), summary)));
+        return found;
+    }
+
+    private Collection<Integer> candidateShards(String key) {
+        if (!shardRouter.isEnabled()) {
+            return List.of(ShardRouter.DIRECTORY_SHARD);
+        }
+        Set<Integer> shards = new LinkedHashSet<>();
+        shardRouter.directoryShardForUsername(key).ifPresent(shards::add);
+        shardRouter.directoryShardForEmail(key).ifPresent(shards::add);
+        if (shards.isEmpty()) {
+            shards.add(shardRouter.homeShard(key));
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,104 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.dto.UserSummary;
+import com.it342.g1.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Resolves userIds in bulk; concurrent batches that overlap share the same in-flight load per id
+@Service
+public class UserBatchLoader {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserArchiveService userArchiveService;
+
+    @Value("${internal.batch.coalesce-wait-ms:2000}")
+    private long coalesceWaitMs;
+
+    // Absent ids complete with null
+    private final ConcurrentHashMap<Long, CompletableFuture<UserSummary>> inFlight = new ConcurrentHashMap<>();
+
+    public Map<Long, UserSummary> load(Collection<Long> userIds) {
+        Map<Long, CompletableFuture<UserSummary>> pending = new LinkedHashMap<>();
+        Map<Long, CompletableFuture<UserSummary>> owned = new LinkedHashMap<>();
+
+        // Claim every id nobody else is loading; piggyback on the rest
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            CompletableFuture<UserSummary> mine = new CompletableFuture<>();
+            CompletableFuture<UserSummary> existing = inFlight.putIfAbsent(userId, mine);
+            if (existing == null) {
+                owned.put(userId, mine);
+                pending.put(userId, mine);
+            } else {
+                pending.put(userId, existing);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            try {
+                Map<Long, UserSummary> found = query(owned.keySet());
+                owned.forEach((userId, future) -> future.complete(found.get(userId)));
+            } catch (RuntimeException e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+
+        Map<Long, UserSummary> result = new LinkedHashMap<>();
+        List<Long> retry = new ArrayList<>();
+        for (Map.Entry<Long, CompletableFuture<UserSummary>> entry : pending.entrySet()) {
+            try {
+                UserSummary summary = entry.getValue().get(coalesceWaitMs, TimeUnit.MILLISECONDS);
+                if (summary != null) {
+                    result.put(entry.getKey(), summary);
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                // Someone else's load is slow or failed; fetch these ourselves
+                retry.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for user lookup", e);
+            }
+        }
+        if (!retry.isEmpty()) {
+            result.putAll(query(retry));
+        }
+        return result;
+    }
+
+    private Map<Long, UserSummary> query(Collection<Long> userIds) {
+        Map<Long, UserSummary> found = new LinkedHashMap<>();
+        for (UserSummary summary : userRepository.findSummariesByUserIdIn(userIds)) {
+            found.put(summary.getUserId(), summary);
+        }
+        // Ids missing from the hot table may belong to archived users
+        if (found.size() < userIds.size()) {
+            List<Long> missing = new ArrayList<>();
+            for (Long userId : userIds) {
+                if (!found.containsKey(userId)) {
+                    missing.add(userId);
+                }
+            }
+            found.putAll(userArchiveService.findSummaries(missing));
+        }
+        return found;
+    }
+}
@@ -0,0 +1,143 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.dto.UserProfile;
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.exception.AccountConflictException;
+import com.it342.g1.backend.migration.NormalizedIdentifierBackfill;
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.sharding.ShardRouter;
+import com.it342.g1.backend.util.Identifiers;
+import com.it342.g1.backend.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+@Service
+public class UserService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("email");
+
+    @Autowired
+    private NormalizedIdentifierBackfill normalizedIdentifierBackfill;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private UserArchiveService userArchiveService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user.profile.single-flight.max-wait-ms:1000}")
+    private long profileMaxWaitMs;
+
+    private SingleFlight<String, Optional<UserProfile>> profileLoads;
+
+    @PostConstruct
+    void init() {
+        profileLoads = new SingleFlight<>("user.profile", profileMaxWaitMs, meterRegistry);
+    }
+
+    // Case-insensitive lookups; exact match is only tried while old rows are still being backfilled
+    public Optional<User> findByUsername(String username) {
+        Optional<User> user = userRepository.findByUsernameNormalized(Identifiers.normalize(username));
+        if (user.isEmpty() && !normalizedIdentifierBackfill.isComplete()) {
+            user = userRepository.findByUsername(username);
+        }
+        return user;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        Optional<User> user = userRepository.findByEmailNormalized(Identifiers.normalize(email));
+        if (user.isEmpty() && !normalizedIdentifierBackfill.isComplete()) {
+            user = userRepository.findByEmail(email);
+        }
+        return user;
+    }
+
+    // Concurrent reads of the same profile share one findByUsername
+    public Optional<UserProfile> getProfile(String username) {
+        return profileLoads.execute(Identifiers.normalize(username),
+                () -> findByUsername(username).map(UserProfile::from));
+    }
+
+    // Apply only the supplied fields with one UPDATE keyed by userId
+    public PatchResult patchProfile(Long userId, Map<String, String> updates, Long expectedVersion) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("No fields to update");
+        }
+        for (String field : updates.keySet()) {
+            if (!PATCHABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be updated");
+            }
+        }
+
+        String email = requireValidEmail(updates.get("email"));
+
+        String emailNormalized = Identifiers.normalize(email);
+        requireEmailNotArchived(emailNormalized);
+
+        int updated;
+        try {
+            updated = shardRouter.changeEmail(userId, emailNormalized, () -> expectedVersion == null
+                    ? userRepository.updateEmail(userId, email, emailNormalized)
+                    : userRepository.updateEmailIfVersion(userId, email, emailNormalized, expectedVersion));
+        } catch (DataIntegrityViolationException e) {
+            // email is the only unique column this statement touches
+            throw AccountConflictException.EMAIL_TAKEN;
+        }
+
+        if (updated == 1) {
+            return PatchResult.UPDATED;
+        }
+        // Only the failure path pays for a second lookup
+        return userRepository.findVersionByUserId(userId).isPresent()
+                ? PatchResult.VERSION_MISMATCH
+                : PatchResult.NOT_FOUND;
+    }
+
+    // Full-entity save behind PUT, with the same duplicate-email translation as patchProfile
+    public User saveProfile(User user) {
+        String emailNormalized = Identifiers.normalize(user.getEmail());
+        requireEmailNotArchived(emailNormalized);
+        try {
+            return shardRouter.changeEmail(user.getUserId(), emailNormalized, () -> userRepository.saveAndFlush(user));
+        } catch (DataIntegrityViolationException e) {
+            // email is the only unique column a profile update changes
+            throw AccountConflictException.EMAIL_TAKEN;
+        }
+    }
+
+    // An archived account keeps its email, as on registration; taking it would block that account's restore
+    private void requireEmailNotArchived(String emailNormalized) {
+        if (userArchiveService.isEmailArchived(emailNormalized)) {
+            throw AccountConflictException.EMAIL_TAKEN;
+        }
+    }
+
+    public static String requireValidEmail(String email) {
+        if (email == null || !EMAIL_PATTERN.matcher(email).matches()) {
+            throw new IllegalArgumentException("Invalid email format");
+        }
+        return email;
+    }
+
+    public enum PatchResult {
+        UPDATED,
+        NOT_FOUND,
+        VERSION_MISMATCH
+    }
+}
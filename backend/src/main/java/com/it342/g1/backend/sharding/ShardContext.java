@@ -0,0 +1,35 @@
+package com.it342.g1.backend.sharding;
+
+import java.util.function.Supplier;
+
+// Shard the current thread is pinned to; read by ShardRoutingDataSource when a connection is acquired
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static boolean isPinned() {
+        return CURRENT.get() != null;
+    }
+
+    // Pin to a shard for the duration of the action, restoring any outer pin afterwards
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
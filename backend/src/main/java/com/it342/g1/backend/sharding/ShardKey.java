@@ -0,0 +1,21 @@
+package com.it342.g1.backend.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks the UserRepository parameter that decides which shard a call is routed to
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+    Kind value();
+
+    enum Kind {
+        USERNAME,
+        EMAIL,
+        USER_ID,
+        USER_IDS
+    }
+}
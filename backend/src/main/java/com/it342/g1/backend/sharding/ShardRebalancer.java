@@ -0,0 +1,260 @@
+package com.it342.g1.backend.sharding;
+
+import com.it342.g1.backend.entity.ShardDirectoryEntry;
+import com.it342.g1.backend.repository.ShardDirectoryRepository;
+import com.it342.g1.backend.util.Identifiers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moves users whose home shard (by the current shard count) differs from where they are
+ * stored, and records directory entries for users that predate sharding. A move locks the
+ * user's rows on the source (SELECT ... FOR UPDATE), so every write to that user waits
+ * until the move is over; it then copies them to the target in a transaction that stays
+ * uncommitted, deletes the source rows, repoints the directory and commits the target
+ * before the source. Writers blocked on the source wake up to a missing row and fall
+ * through the directory to the target, so no write lands on a copy that is thrown away.
+ * Reads keep working throughout because lookups fall back to the directory when the home
+ * shard misses. A move that fails before the target commits is rolled back on both sides
+ * and retried by the next run.
+ *
+ * Rows keep their user_id, and inserting an explicit id above a shard's identity counter
+ * advances the counter into another shard's range. Growing the shard count only sends
+ * users to the new, higher shards, so that never happens in a normal run; a move that
+ * would do it is refused and reported instead.
+ */
+@Component
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    // Tables holding per-user rows that must travel with the user, and the column holding the user's id
+    static final Map<String, String> USER_SCOPED_TABLES = orderedMap(
+            "users", "user_id",
+            "users_archive", "user_id",
+            "outbox_events", "aggregate_id");
+
+    // Identity columns the target shard assigns itself instead of taking the source's value
+    private static final Map<String, String> GENERATED_COLUMNS = Map.of("outbox_events", "id");
+
+    // Tables scanned for users to move; archived users live in users_archive only
+    private static final List<String> SCANNED_TABLES = List.of("users", "users_archive");
+
+    @Autowired
+    private ShardRouter router;
+
+    @Autowired
+    private ShardDirectoryRepository directory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${sharding.rebalance.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${sharding.rebalance.pause-ms:20}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Starts a background run; false if one is already in progress or sharding is off
+    public boolean start() {
+        if (!router.isEnabled() || !running.compareAndSet(false, true)) {
+            return false;
+        }
+        scanned.set(0);
+        moved.set(0);
+        failed.set(0);
+        Thread worker = new Thread(() -> {
+            try {
+                rebalance();
+            } catch (RuntimeException e) {
+                log.error("Shard rebalance aborted", e);
+            } finally {
+                running.set(false);
+            }
+        }, "shard-rebalancer");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        return Map.of("running", running.get(), "scanned", scanned.get(),
+                "moved", moved.get(), "failed", failed.get());
+    }
+
+    void rebalance() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            for (String table : SCANNED_TABLES) {
+                rebalanceTable(jdbc, shard, table);
+            }
+        }
+        log.info("Shard rebalance finished: {}", status());
+    }
+
+    private void rebalanceTable(JdbcTemplate jdbc, int source, String table) {
+        long afterUserId = 0;
+        while (true) {
+            long after = afterUserId;
+            List<Map<String, Object>> chunk = router.onShard(source, () -> jdbc.queryForList(
+                    "SELECT user_id, username, email FROM " + table + " WHERE user_id > ? ORDER BY user_id LIMIT ?",
+                    after, chunkSize));
+            if (chunk.isEmpty()) {
+                return;
+            }
+            recordMissingPlacements(chunk, source);
+            for (Map<String, Object> row : chunk) {
+                scanned.incrementAndGet();
+                long userId = ((Number) row.get("user_id")).longValue();
+                int home = router.homeShard(Identifiers.normalize((String) row.get("username")));
+                if (home != source) {
+                    move(userId, source, home);
+                }
+            }
+            afterUserId = ((Number) chunk.get(chunk.size() - 1).get("user_id")).longValue();
+            pause();
+        }
+    }
+
+    private void recordMissingPlacements(List<Map<String, Object>> chunk, int shard) {
+        List<Long> userIds = chunk.stream()
+                .map(row -> ((Number) row.get("user_id")).longValue())
+                .collect(Collectors.toList());
+        Set<Long> known = new HashSet<>();
+        router.onShard(ShardRouter.DIRECTORY_SHARD, () -> directory.findByUserIdIn(userIds))
+                .forEach(entry -> known.add(entry.getUserId()));
+        for (Map<String, Object> row : chunk) {
+            long userId = ((Number) row.get("user_id")).longValue();
+            if (!known.contains(userId)) {
+                router.onShard(ShardRouter.DIRECTORY_SHARD, () -> directory.save(new ShardDirectoryEntry(
+                        Identifiers.normalize((String) row.get("username")),
+                        Identifiers.normalize((String) row.get("email")), userId, shard)));
+            }
+        }
+    }
+
+    // Source and target each get their own connection: both transactions stay open until the copy is complete
+    private void move(long userId, int source, int target) {
+        if ((userId >>> ShardRouter.ID_SHARD_SHIFT) > target) {
+            failed.incrementAndGet();
+            log.warn("Not moving user {} from shard {} to shard {}: its id would advance the target's id range",
+                    userId, source, target);
+            return;
+        }
+        try (Connection sourceConnection = connect(source); Connection targetConnection = connect(target)) {
+            JdbcTemplate from = new JdbcTemplate(new SingleConnectionDataSource(sourceConnection, true));
+            JdbcTemplate to = new JdbcTemplate(new SingleConnectionDataSource(targetConnection, true));
+            boolean repointed = false;
+            try {
+                Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+                for (Map.Entry<String, String> table : USER_SCOPED_TABLES.entrySet()) {
+                    rows.put(table.getKey(), from.queryForList("SELECT * FROM " + table.getKey()
+                            + " WHERE " + table.getValue() + " = ? FOR UPDATE", userId));
+                }
+                for (Map.Entry<String, List<Map<String, Object>>> table : rows.entrySet()) {
+                    for (Map<String, Object> row : table.getValue()) {
+                        insert(to, table.getKey(), row);
+                    }
+                    from.update("DELETE FROM " + table.getKey() + " WHERE "
+                            + USER_SCOPED_TABLES.get(table.getKey()) + " = ?", userId);
+                }
+                router.onShard(ShardRouter.DIRECTORY_SHARD, () -> directory.updateShard(userId, target));
+                repointed = true;
+                targetConnection.commit();
+            } catch (SQLException | RuntimeException e) {
+                sourceConnection.rollback();
+                targetConnection.rollback();
+                if (repointed) {
+                    router.onShard(ShardRouter.DIRECTORY_SHARD, () -> directory.updateShard(userId, source));
+                }
+                failed.incrementAndGet();
+                log.warn("Moving user {} from shard {} to shard {} failed; the next run retries", userId, source, target, e);
+                return;
+            }
+            try {
+                sourceConnection.commit();
+            } catch (SQLException e) {
+                // The target copy is live and may already have been written to, so it must not be undone
+                failed.incrementAndGet();
+                log.error("User {} was copied to shard {} but not removed from shard {}; delete the source rows manually",
+                        userId, target, source, e);
+                return;
+            }
+            moved.incrementAndGet();
+        } catch (SQLException e) {
+            failed.incrementAndGet();
+            log.warn("Moving user {} from shard {} to shard {} failed; the next run retries", userId, source, target, e);
+        }
+    }
+
+    private Connection connect(int shard) throws SQLException {
+        Connection connection = ShardContext.callOn(shard, () -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new CannotGetJdbcConnectionException("No connection to shard " + shard, e);
+            }
+        });
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private static int insert(JdbcTemplate jdbc, String table, Map<String, Object> row) {
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner placeholders = new StringJoiner(", ");
+        List<Object> values = new ArrayList<>();
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            if (column.getKey().equalsIgnoreCase(GENERATED_COLUMNS.get(table))) {
+                continue;
+            }
+            columns.add(column.getKey());
+            placeholders.add("?");
+            values.add(column.getValue());
+        }
+        return jdbc.update("INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")",
+                values.toArray());
+    }
+
+    private static Map<String, String> orderedMap(String... keysAndValues) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rebalance interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.it342.g1.backend.sharding;
+
+import com.it342.g1.backend.entity.ShardDirectoryEntry;
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.repository.ShardDirectoryRepository;
+import com.it342.g1.backend.util.Identifiers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Decides which shard holds a user. Usernames map to a home shard by a stable hash, so
+ * username logins need no directory hit; the user_shard_directory on shard 0 records
+ * email and userId placement (and overrides the hash while a user is being moved).
+ * With sharding disabled every method degrades to running against the single database.
+ */
+@Component
+public class ShardRouter {
+
+    public static final int DIRECTORY_SHARD = 0;
+
+    // Each shard's user_id identity starts at shard << ID_SHARD_SHIFT so ids stay globally unique
+    public static final int ID_SHARD_SHIFT = 40;
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Autowired
+    private ShardDirectoryRepository directory;
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public boolean isDirectoryAuthoritative() {
+        return properties.isDirectoryAuthoritative();
+    }
+
+    public int shardCount() {
+        return isEnabled() ? properties.getShards().size() : 1;
+    }
+
+    // Jump consistent hash of FNV-1a, so growing the shard count moves as few users as possible
+    public int homeShard(String usernameNormalized) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : usernameNormalized.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return jumpHash(hash, shardCount());
+    }
+
+    // Shard a userId was allocated on; users only leave it when the rebalancer moves them
+    public int originShard(Long userId) {
+        int shard = (int) (userId >>> ID_SHARD_SHIFT);
+        return shard < shardCount() ? shard : DIRECTORY_SHARD;
+    }
+
+    public Optional<Integer> directoryShardForUsername(String usernameNormalized) {
+        return onShard(DIRECTORY_SHARD, () -> directory.findById(usernameNormalized))
+                .map(ShardDirectoryEntry::getShard);
+    }
+
+    public Optional<Integer> directoryShardForEmail(String emailNormalized) {
+        return onShard(DIRECTORY_SHARD, () -> directory.findByEmailNormalized(emailNormalized))
+                .map(ShardDirectoryEntry::getShard);
+    }
+
+    public Optional<Integer> directoryShardForUserId(Long userId) {
+        return onShard(DIRECTORY_SHARD, () -> directory.findByUserId(userId))
+                .map(ShardDirectoryEntry::getShard);
+    }
+
+    public Map<Long, Integer> shardsForUserIds(Collection<Long> userIds) {
+        Map<Long, Integer> placement = new HashMap<>();
+        for (Long userId : userIds) {
+            placement.put(userId, originShard(userId));
+        }
+        onShard(DIRECTORY_SHARD, () -> directory.findByUserIdIn(userIds))
+                .forEach(entry -> placement.put(entry.getUserId(), entry.getShard()));
+        return placement;
+    }
+
+    public int shardForUserId(Long userId) {
+        return directoryShardForUserId(userId).orElseGet(() -> originShard(userId));
+    }
+
+    public <T> T onShard(int shard, Supplier<T> action) {
+        return ShardContext.callOn(shard, action);
+    }
+
+    public void forEachShard(IntConsumer action) {
+        for (int shard = 0; shard < shardCount(); shard++) {
+            int current = shard;
+            ShardContext.callOn(current, () -> {
+                action.accept(current);
+                return null;
+            });
+        }
+    }
+
+    // Claim the username and email globally, insert on the home shard, then record the new id
+    public User register(User user, Supplier<User> insert) {
+        if (!isEnabled()) {
+            return insert.get();
+        }
+        String usernameNormalized = Identifiers.normalize(user.getUsername());
+        int shard = homeShard(usernameNormalized);
+        try {
+            onShard(DIRECTORY_SHARD, () -> directory.saveAndFlush(new ShardDirectoryEntry(
+                    usernameNormalized, Identifiers.normalize(user.getEmail()), null, shard)));
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateKeyException("Username or email already exists", e);
+        }
+        try {
+            User saved = onShard(shard, insert);
+            onShard(DIRECTORY_SHARD, () -> directory.assignUserId(usernameNormalized, saved.getUserId()));
+            return saved;
+        } catch (RuntimeException e) {
+            onShard(DIRECTORY_SHARD, () -> {
+                directory.deleteById(usernameNormalized);
+                return null;
+            });
+            throw e;
+        }
+    }
+
+    // Re-point the directory's email before the shard write so uniqueness holds across shards
+    public <T> T changeEmail(Long userId, String emailNormalized, Supplier<T> update) {
+        if (!isEnabled()) {
+            return update.get();
+        }
+        Optional<String> previous = onShard(DIRECTORY_SHARD, () -> directory.findByUserId(userId))
+                .map(ShardDirectoryEntry::getEmailNormalized);
+        if (previous.isEmpty()) {
+            return update.get();
+        }
+        onShard(DIRECTORY_SHARD, () -> directory.updateEmail(userId, emailNormalized));
+        try {
+            return update.get();
+        } catch (RuntimeException e) {
+            onShard(DIRECTORY_SHARD, () -> directory.updateEmail(userId, previous.get()));
+            throw e;
+        }
+    }
+
+    private static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
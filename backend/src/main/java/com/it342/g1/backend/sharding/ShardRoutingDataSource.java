@@ -0,0 +1,13 @@
+package com.it342.g1.backend.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Hands out connections from the shard pinned in ShardContext (shard 0 when nothing is pinned)
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard == null ? ShardRouter.DIRECTORY_SHARD : shard;
+    }
+}
@@ -0,0 +1,79 @@
+package com.it342.g1.backend.sharding;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.EnumSet;
+
+/**
+ * Hibernate's ddl-auto only runs against the connection it gets at boot, i.e. shard 0.
+ * This captures the mapping metadata while the session factory is built and replays the
+ * schema update on every other shard, then moves each shard's user_id identity to its
+ * own range (shard << ShardRouter.ID_SHARD_SHIFT).
+ */
+public class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    private final int shardCount;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Metadata metadata;
+    private volatile SessionFactoryServiceRegistry serviceRegistry;
+
+    public ShardSchemaInitializer(int shardCount, DataSource dataSource) {
+        this.shardCount = shardCount;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = metadata;
+        this.serviceRegistry = serviceRegistry;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (metadata == null) {
+            throw new IllegalStateException("Hibernate metadata was not captured; shard schemas cannot be created");
+        }
+        for (int shard = 1; shard < shardCount; shard++) {
+            int current = shard;
+            ShardContext.callOn(current, () -> {
+                new SchemaUpdate().execute(EnumSet.of(TargetType.DATABASE), metadata, serviceRegistry);
+                reserveIdRange(current);
+                return null;
+            });
+        }
+    }
+
+    private void reserveIdRange(int shard) {
+        long base = (long) shard << ShardRouter.ID_SHARD_SHIFT;
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(user_id), 0) FROM users", Long.class);
+        if (max != null && max >= base) {
+            return;
+        }
+        String product = jdbcTemplate.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+        if ("H2".equalsIgnoreCase(product)) {
+            jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN user_id RESTART WITH " + (base + 1));
+        } else {
+            jdbcTemplate.execute("ALTER TABLE users AUTO_INCREMENT = " + (base + 1));
+        }
+        log.info("Shard {} allocates user ids from {}", shard, base + 1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.it342.g1.backend.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+
+    // Off by default: the single spring.datasource.* database holds everything
+    private boolean enabled = false;
+
+    // When true a directory miss means "no such user"; turn off while migrating pre-sharding data
+    private boolean directoryAuthoritative = true;
+
+    private int poolSize = 5;
+
+    // Shard 0 also holds the user_shard_directory table
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,236 @@
+package com.it342.g1.backend.sharding;
+
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.util.Identifiers;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes every UserRepository call to the shard that owns its @ShardKey argument, before
+ * the repository's own transaction acquires a connection. Calls made while a shard is
+ * already pinned (ShardRouter.onShard / forEachShard) run there unchanged; any other
+ * call without a shard key is rejected rather than silently hitting shard 0.
+ * Only registered when sharding.enabled=true.
+ */
+@Aspect
+public class UserShardRoutingAspect {
+
+    private final ShardRouter router;
+    private final Map<Method, Route> routes = new ConcurrentHashMap<>();
+
+    public UserShardRoutingAspect(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Around("execution(* *(..)) && target(com.it342.g1.backend.repository.UserRepository)")
+    public Object route(ProceedingJoinPoint pjp) throws Throwable {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        if (ShardContext.isPinned() || method.getDeclaringClass() == Object.class) {
+            return pjp.proceed();
+        }
+
+        Route route = routes.computeIfAbsent(method, Route::of);
+        Object[] args = pjp.getArgs();
+        Object key = route.index < 0 ? null : args[route.index];
+
+        switch (route.kind) {
+            case USERNAME:
+                return byUsername(pjp, method, Identifiers.normalize((String) key));
+            case EMAIL:
+                return byEmail(pjp, method, Identifiers.normalize((String) key));
+            case USER_ID:
+                return byUserId(pjp, method, (Long) key);
+            case USER_IDS:
+                return scatter(pjp, args, route.index, (Collection<?>) key);
+            case ENTITY:
+                return byEntity(pjp, (User) key);
+            default:
+                throw new IllegalStateException("UserRepository." + method.getName()
+                        + " has no @ShardKey; pin a shard with ShardRouter first");
+        }
+    }
+
+    // Hash first; only a miss pays for the directory (user mid-move or not present at all)
+    private Object byUsername(ProceedingJoinPoint pjp, Method method, String usernameNormalized) throws Throwable {
+        int home = router.homeShard(usernameNormalized);
+        Object result = proceedOn(pjp, home);
+        if (!isMiss(result)) {
+            return result;
+        }
+        Optional<Integer> placed = router.directoryShardForUsername(usernameNormalized);
+        if (placed.isPresent()) {
+            return placed.get() == home ? result : proceedOn(pjp, placed.get());
+        }
+        return router.isDirectoryAuthoritative() ? result : firstHit(pjp, method, home);
+    }
+
+    private Object byEmail(ProceedingJoinPoint pjp, Method method, String emailNormalized) throws Throwable {
+        Optional<Integer> placed = router.directoryShardForEmail(emailNormalized);
+        if (placed.isPresent()) {
+            return proceedOn(pjp, placed.get());
+        }
+        return router.isDirectoryAuthoritative() ? missFor(method) : firstHit(pjp, method, -1);
+    }
+
+    private Object byUserId(ProceedingJoinPoint pjp, Method method, Long userId) throws Throwable {
+        int origin = router.originShard(userId);
+        Object result = proceedOn(pjp, origin);
+        if (!isMiss(result)) {
+            return result;
+        }
+        Optional<Integer> placed = router.directoryShardForUserId(userId);
+        return placed.isPresent() && placed.get() != origin ? proceedOn(pjp, placed.get()) : result;
+    }
+
+    private Object byEntity(ProceedingJoinPoint pjp, User user) throws Throwable {
+        int shard = user.getUserId() == null
+                ? router.homeShard(Identifiers.normalize(user.getUsername()))
+                : router.shardForUserId(user.getUserId());
+        return proceedOn(pjp, shard);
+    }
+
+    // One call per shard holding any of the ids, results concatenated
+    private Object scatter(ProceedingJoinPoint pjp, Object[] args, int index, Collection<?> userIds) throws Throwable {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Map.Entry<Long, Integer> placement : router.shardsForUserIds(toLongs(userIds)).entrySet()) {
+            byShard.computeIfAbsent(placement.getValue(), s -> new ArrayList<>()).add(placement.getKey());
+        }
+        List<Object> merged = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> shardIds : byShard.entrySet()) {
+            Object[] shardArgs = args.clone();
+            shardArgs[index] = shardIds.getValue();
+            merged.addAll((Collection<?>) proceedOn(pjp, shardIds.getKey(), shardArgs));
+        }
+        return merged;
+    }
+
+    // Pre-directory data: probe every shard, starting with the likeliest one
+    private Object firstHit(ProceedingJoinPoint pjp, Method method, int alreadyTried) throws Throwable {
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            if (shard == alreadyTried) {
+                continue;
+            }
+            Object result = proceedOn(pjp, shard);
+            if (!isMiss(result)) {
+                return result;
+            }
+        }
+        return missFor(method);
+    }
+
+    private Object proceedOn(ProceedingJoinPoint pjp, int shard) throws Throwable {
+        return proceedOn(pjp, shard, pjp.getArgs());
+    }
+
+    private Object proceedOn(ProceedingJoinPoint pjp, int shard, Object[] args) throws Throwable {
+        try {
+            return ShardContext.callOn(shard, () -> {
+                try {
+                    return pjp.proceed(args);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new CheckedWrapper(t);
+                }
+            });
+        } catch (CheckedWrapper e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isMiss(Object result) {
+        return result == null
+                || (result instanceof Optional && ((Optional<?>) result).isEmpty())
+                || Boolean.FALSE.equals(result)
+                || (result instanceof Integer && (Integer) result == 0)
+                || (result instanceof Collection && ((Collection<?>) result).isEmpty());
+    }
+
+    private static Object missFor(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return false;
+        }
+        if (type == int.class || type == Integer.class) {
+            return 0;
+        }
+        if (List.class.isAssignableFrom(type)) {
+            return List.of();
+        }
+        return null;
+    }
+
+    private static List<Long> toLongs(Collection<?> values) {
+        List<Long> ids = new ArrayList<>(values.size());
+        for (Object value : values) {
+            ids.add((Long) value);
+        }
+        return ids;
+    }
+
+    private static final class CheckedWrapper extends RuntimeException {
+        CheckedWrapper(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private static final class Route {
+        final Kind kind;
+        final int index;
+
+        Route(Kind kind, int index) {
+            this.kind = kind;
+            this.index = index;
+        }
+
+        static Route of(Method method) {
+            Annotation[][] annotations = method.getParameterAnnotations();
+            for (int i = 0; i < annotations.length; i++) {
+                for (Annotation annotation : annotations[i]) {
+                    if (annotation instanceof ShardKey) {
+                        return new Route(Kind.valueOf(((ShardKey) annotation).value().name()), i);
+                    }
+                }
+            }
+            // Inherited CrudRepository methods: save/delete by entity, findById/existsById by id
+            Class<?>[] types = method.getParameterTypes();
+            if (types.length == 1 && (types[0] == Object.class || User.class.isAssignableFrom(types[0]))
+                    && (method.getName().startsWith("save") || method.getName().equals("delete"))) {
+                return new Route(Kind.ENTITY, 0);
+            }
+            if (types.length == 1 && (types[0] == Object.class || types[0] == Long.class)
+                    && method.getName().endsWith("ById")) {
+                return new Route(Kind.USER_ID, 0);
+            }
+            if (types.length == 1 && Iterable.class.isAssignableFrom(types[0])
+                    && method.getName().equals("findAllById")) {
+                return new Route(Kind.USER_IDS, 0);
+            }
+            return new Route(Kind.NONE, -1);
+        }
+    }
+
+    private enum Kind {
+        USERNAME,
+        EMAIL,
+        USER_ID,
+        USER_IDS,
+        ENTITY,
+        NONE
+    }
+}
@@ -0,0 +1,35 @@
+package com.it342.g1.backend.timing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Times connection checkout (Hikari pool wait) as the "db-pool" phase
+public class PoolWaitTimingDataSource extends DelegatingDataSource {
+
+    public PoolWaitTimingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            RequestTiming.record("db-pool", System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            RequestTiming.record("db-pool", System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.it342.g1.backend.timing;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-request phase timer. ServerTimingFilter opens a recording for each request on the
+ * request thread; code on the hot paths wraps its phases in time(...), which is a plain
+ * call when no recording is open (background jobs, tests). Repeated phases accumulate,
+ * and phases may nest (db-pool inside lookup), so durations are not meant to add up.
+ */
+public final class RequestTiming {
+
+    private static final int MAX_PHASES = 16;
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    private RequestTiming() {
+    }
+
+    public static final class Recording {
+        private final long startNanos = System.nanoTime();
+        private final String[] names = new String[MAX_PHASES];
+        private final long[] nanos = new long[MAX_PHASES];
+        private final int[] counts = new int[MAX_PHASES];
+        private int size;
+
+        void add(String phase, long elapsed) {
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(phase)) {
+                    nanos[i] += elapsed;
+                    counts[i]++;
+                    return;
+                }
+            }
+            if (size < MAX_PHASES) {
+                names[size] = phase;
+                nanos[size] = elapsed;
+                counts[size] = 1;
+                size++;
+            }
+        }
+
+        public long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        // Server-Timing header value, e.g. "lookup;dur=3.1, bcrypt;dur=78.4, total;dur=84.0"
+        public String toServerTiming() {
+            StringBuilder header = new StringBuilder(32 * (size + 1));
+            for (int i = 0; i < size; i++) {
+                header.append(names[i]).append(";dur=").append(millis(nanos[i])).append(", ");
+            }
+            return header.append("total;dur=").append(millis(elapsedNanos())).toString();
+        }
+
+        // Server-Timing header value without the phases, e.g. "total;dur=84.0"
+        public String toServerTimingTotal() {
+            return "total;dur=" + millis(elapsedNanos());
+        }
+
+        // Breakdown for the slow-request log, including how often each phase ran
+        public String toBreakdown() {
+            StringBuilder breakdown = new StringBuilder(48 * size);
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    breakdown.append(' ');
+                }
+                breakdown.append(names[i]).append('=').append(millis(nanos[i])).append("ms");
+                if (counts[i] > 1) {
+                    breakdown.append('(').append(counts[i]).append("x)");
+                }
+            }
+            return breakdown.toString();
+        }
+
+        private static String millis(long nanos) {
+            long tenths = nanos / 100_000;
+            return tenths / 10 + "." + tenths % 10;
+        }
+    }
+
+    static Recording begin() {
+        Recording recording = new Recording();
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static <T> T time(String phase, Supplier<T> body) {
+        Recording recording = CURRENT.get();
+        if (recording == null) {
+            return body.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            recording.add(phase, System.nanoTime() - start);
+        }
+    }
+
+    // For phases timed by the caller, e.g. around a checked call
+    public static void record(String phase, long elapsedNanos) {
+        Recording recording = CURRENT.get();
+        if (recording != null) {
+            recording.add(phase, elapsedNanos);
+        }
+    }
+
+    public static void time(String phase, Runnable body) {
+        time(phase, () -> {
+            body.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.it342.g1.backend.timing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Opens a RequestTiming recording per request, emits Server-Timing and logs sampled slow requests.
+// Unauthenticated /api/auth/** callers only get the total: a bcrypt phase on login would tell them
+// whether the username exists.
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+    public static final String TIMING_ALLOW_ORIGIN = "Timing-Allow-Origin";
+
+    private static final String PUBLIC_PREFIX = "/api/auth/";
+
+    private static final Logger slowLog = LoggerFactory.getLogger("com.it342.g1.backend.timing.SlowRequests");
+
+    private final boolean emitHeader;
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+
+    public ServerTimingFilter(boolean emitHeader, long slowThresholdMs, double slowSampleRate) {
+        this.emitHeader = emitHeader;
+        this.slowThresholdNanos = slowThresholdMs * 1_000_000;
+        this.slowSampleRate = slowSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming.Recording recording = RequestTiming.begin();
+        HttpServletResponse timed = emitHeader
+                ? new ServerTimingResponse(response, recording, !isPublic(request)) : response;
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            RequestTiming.end();
+            long elapsed = recording.elapsedNanos();
+            if (elapsed >= slowThresholdNanos && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                slowLog.warn("Slow request {} {} -> {} in {} ms: {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), elapsed / 1_000_000, recording.toBreakdown());
+            }
+        }
+    }
+
+    private static boolean isPublic(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + PUBLIC_PREFIX);
+    }
+
+    // Adds the header at the last moment it can still be sent: just before the response commits.
+    // Origins that CORS let in may also read the timings from the browser's Resource Timing API.
+    private static final class ServerTimingResponse extends OnCommittedResponseWrapper {
+
+        private final RequestTiming.Recording recording;
+        private final boolean withPhases;
+
+        ServerTimingResponse(HttpServletResponse response, RequestTiming.Recording recording, boolean withPhases) {
+            super(response);
+            this.recording = recording;
+            this.withPhases = withPhases;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.setHeader(HEADER, withPhases ? recording.toServerTiming() : recording.toServerTimingTotal());
+            String allowedOrigin = response.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN);
+            if (allowedOrigin != null) {
+                response.setHeader(TIMING_ALLOW_ORIGIN, allowedOrigin);
+            }
+        }
+    }
+}
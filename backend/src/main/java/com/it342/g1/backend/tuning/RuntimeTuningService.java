@@ -0,0 +1,204 @@
+package com.it342.g1.backend.tuning;
+
+import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.security.TunableBCryptPasswordEncoder;
+import com.it342.g1.backend.service.IdempotencyService;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings that can be changed during an incident without a redeploy: BCrypt cost for new
+ * hashes, access-token lifetime, connection pool size (every shard pool when sharding is
+ * on) and the idempotency cache bound. A change request is validated as a whole against
+ * the configured limits before anything is applied, every applied change is written to
+ * the TuningAudit log and kept in memory, and each setting is exported as a
+ * tuning.value gauge read from the live component. Changes do not survive a restart;
+ * make them permanent in application.properties.
+ */
+@Service
+public class RuntimeTuningService {
+
+    private static final Logger audit = LoggerFactory.getLogger("TuningAudit");
+
+    public static final String BCRYPT_STRENGTH = "bcrypt.strength";
+    public static final String JWT_EXPIRATION_MS = "jwt.expiration-ms";
+    public static final String POOL_MAX_SIZE = "pool.max-size";
+    public static final String IDEMPOTENCY_MAX_ENTRIES = "idempotency.max-entries";
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tuning.limits.bcrypt-strength.min:10}")
+    private int bcryptMin;
+
+    @Value("${tuning.limits.bcrypt-strength.max:14}")
+    private int bcryptMax;
+
+    @Value("${tuning.limits.jwt-expiration-ms.min:300000}")
+    private long expirationMin;
+
+    @Value("${tuning.limits.jwt-expiration-ms.max:604800000}")
+    private long expirationMax;
+
+    @Value("${tuning.limits.pool-max-size.min:2}")
+    private int poolMin;
+
+    @Value("${tuning.limits.pool-max-size.max:50}")
+    private int poolMax;
+
+    @Value("${tuning.limits.idempotency-max-entries.min:100}")
+    private int idempotencyMin;
+
+    @Value("${tuning.limits.idempotency-max-entries.max:100000}")
+    private int idempotencyMax;
+
+    @Value("${tuning.audit.max-entries:200}")
+    private int auditMaxEntries;
+
+    private final Map<String, Tunable> tunables = new LinkedHashMap<>();
+    private final Deque<TuningChange> auditTrail = new ArrayDeque<>();
+
+    @PostConstruct
+    void init() {
+        if (passwordEncoder instanceof TunableBCryptPasswordEncoder) {
+            TunableBCryptPasswordEncoder bcrypt = (TunableBCryptPasswordEncoder) passwordEncoder;
+            register(new Tunable(BCRYPT_STRENGTH, bcryptMin, bcryptMax,
+                    bcrypt::getStrength, value -> bcrypt.setStrength((int) value)));
+        }
+        register(new Tunable(JWT_EXPIRATION_MS, expirationMin, expirationMax,
+                tokenProvider::getExpirationMs, tokenProvider::setExpirationMs));
+        List<HikariConfigMXBean> pools = pools();
+        if (!pools.isEmpty()) {
+            register(new Tunable(POOL_MAX_SIZE, poolMin, poolMax,
+                    () -> pools.get(0).getMaximumPoolSize(), value -> resizePools(pools, (int) value)));
+        }
+        register(new Tunable(IDEMPOTENCY_MAX_ENTRIES, idempotencyMin, idempotencyMax,
+                idempotencyService::getMaxEntries, value -> idempotencyService.setMaxEntries((int) value)));
+    }
+
+    private void register(Tunable tunable) {
+        tunables.put(tunable.getName(), tunable);
+        Gauge.builder("tuning.value", tunable, Tunable::current)
+                .tag("setting", tunable.getName())
+                .description("Current value of a runtime-tunable setting")
+                .register(meterRegistry);
+    }
+
+    // Current values with their limits
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        tunables.forEach((name, tunable) -> {
+            Map<String, Object> setting = new LinkedHashMap<>();
+            setting.put("value", tunable.current());
+            setting.put("min", tunable.getMin());
+            setting.put("max", tunable.getMax());
+            settings.put(name, setting);
+        });
+        return settings;
+    }
+
+    // Validates every requested change, then applies them in order; nothing is applied if any is invalid
+    public synchronized List<TuningChange> apply(Map<String, Long> changes, String operator, String reason) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("No settings to change");
+        }
+        for (Map.Entry<String, Long> change : changes.entrySet()) {
+            Tunable tunable = tunables.get(change.getKey());
+            if (tunable == null) {
+                throw new IllegalArgumentException("Unknown setting " + change.getKey()
+                        + "; tunable settings are " + tunables.keySet());
+            }
+            if (change.getValue() == null || !tunable.allows(change.getValue())) {
+                throw new IllegalArgumentException(change.getKey() + " must be between "
+                        + tunable.getMin() + " and " + tunable.getMax());
+            }
+        }
+
+        List<TuningChange> applied = new ArrayList<>();
+        for (Map.Entry<String, Long> change : changes.entrySet()) {
+            Tunable tunable = tunables.get(change.getKey());
+            long oldValue = tunable.current();
+            tunable.apply(change.getValue());
+            TuningChange record = new TuningChange(Instant.now(), tunable.getName(), oldValue, change.getValue(),
+                    operator, reason);
+            audit.info("{} changed {} -> {} by {} ({})", record.getSetting(), oldValue, record.getNewValue(),
+                    operator, reason);
+            applied.add(record);
+            synchronized (auditTrail) {
+                auditTrail.addLast(record);
+                while (auditTrail.size() > auditMaxEntries) {
+                    auditTrail.removeFirst();
+                }
+            }
+        }
+        return applied;
+    }
+
+    // Most recent changes, oldest first
+    public List<TuningChange> auditTrail() {
+        synchronized (auditTrail) {
+            return new ArrayList<>(auditTrail);
+        }
+    }
+
+    private static void resizePools(List<HikariConfigMXBean> pools, int maxSize) {
+        for (HikariConfigMXBean pool : pools) {
+            // Growing takes effect on the next checkout; shrinking retires surplus idle connections
+            if (pool.getMinimumIdle() > maxSize) {
+                pool.setMinimumIdle(maxSize);
+            }
+            pool.setMaximumPoolSize(maxSize);
+        }
+    }
+
+    // Every Hikari pool behind the application DataSource, looking through the timing wrapper and shard router
+    private List<HikariConfigMXBean> pools() {
+        List<HikariConfigMXBean> pools = new ArrayList<>();
+        try {
+            if (dataSource.isWrapperFor(AbstractRoutingDataSource.class)) {
+                for (DataSource shard : dataSource.unwrap(AbstractRoutingDataSource.class).getResolvedDataSources().values()) {
+                    if (shard.isWrapperFor(HikariDataSource.class)) {
+                        pools.add(shard.unwrap(HikariDataSource.class).getHikariConfigMXBean());
+                    }
+                }
+            } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                pools.add(dataSource.unwrap(HikariDataSource.class).getHikariConfigMXBean());
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not locate the connection pools", e);
+        }
+        return pools;
+    }
+}
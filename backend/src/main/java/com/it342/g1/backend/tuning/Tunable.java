@@ -0,0 +1,49 @@
+package com.it342.g1.backend.tuning;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+// One runtime-adjustable setting with the inclusive range operators may move it within
+public class Tunable {
+
+    private final String name;
+    private final long min;
+    private final long max;
+    private final LongSupplier current;
+    private final LongConsumer apply;
+
+    public Tunable(String name, long min, long max, LongSupplier current, LongConsumer apply) {
+        if (min > max) {
+            throw new IllegalStateException("Tuning limits for " + name + " are inverted: " + min + " > " + max);
+        }
+        this.name = name;
+        this.min = min;
+        this.max = max;
+        this.current = current;
+        this.apply = apply;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long current() {
+        return current.getAsLong();
+    }
+
+    public boolean allows(long value) {
+        return value >= min && value <= max;
+    }
+
+    void apply(long value) {
+        apply.accept(value);
+    }
+}
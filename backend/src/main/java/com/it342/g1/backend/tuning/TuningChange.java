@@ -0,0 +1,16 @@
+package com.it342.g1.backend.tuning;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+// Audit record of one applied runtime tuning change
+@Value
+public class TuningChange {
+    Instant at;
+    String setting;
+    long oldValue;
+    long newValue;
+    String operator;
+    String reason;
+}
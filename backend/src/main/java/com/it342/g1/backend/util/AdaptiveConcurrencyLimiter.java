@@ -0,0 +1,136 @@
+package com.it342.g1.backend.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-flight request limit that adapts to measured latency (gradient algorithm). Latency
+ * samples are averaged per window; the baseline is the fastest sample seen, i.e. a request
+ * that did not queue, drifting slowly towards newer minimums from unsaturated windows so
+ * it follows real changes in service time. Each window the limit is scaled by baseline * tolerance / recent, clamped to
+ * [0.5, 1], plus sqrt(limit) of headroom so it keeps probing upward while latency holds.
+ * When recent latency grows past the tolerated baseline (queueing behind the pool or
+ * BCrypt) the limit shrinks; requests beyond it are refused instead of queued. The limit
+ * only grows while at least half of it is in use, so an idle service does not inflate it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private volatile int maxInFlightInWindow;
+    private double baselineNanos;
+
+    private final LongAdder sampleSum = new LongAdder();
+    private final LongAdder sampleCount = new LongAdder();
+    private final AtomicLong sampleMin = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final Counter accepted;
+    private final Counter rejected;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing, long windowMs, int minSamples,
+                                      MeterRegistry registry) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowMs * 1_000_000;
+        this.minSamples = minSamples;
+        Gauge.builder("concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", name).register(registry);
+        Gauge.builder("concurrency.inflight", inFlight, AtomicInteger::get)
+                .tag("name", name).register(registry);
+        this.accepted = Counter.builder("concurrency.requests").tag("name", name).tag("outcome", "accepted").register(registry);
+        this.rejected = Counter.builder("concurrency.requests").tag("name", name).tag("outcome", "rejected").register(registry);
+    }
+
+    // Reserves a slot; false means the caller should be refused right away
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > maxInFlightInWindow) {
+                    maxInFlightInWindow = current + 1;
+                }
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    // Releases a slot; the latency only counts as a sample when the request completed normally
+    public void release(long startNanos, boolean sample) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        if (sample) {
+            long latency = now - startNanos;
+            sampleSum.add(latency);
+            sampleCount.increment();
+            sampleMin.accumulateAndGet(latency, Math::min);
+        }
+        long start = windowStart.get();
+        if (now - start >= windowNanos && sampleCount.sum() >= minSamples && windowStart.compareAndSet(start, now)) {
+            adjust();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    synchronized long getBaselineNanos() {
+        return (long) baselineNanos;
+    }
+
+    // Runs on the single thread that closed the window
+    private synchronized void adjust() {
+        long count = sampleCount.sumThenReset();
+        long sum = sampleSum.sumThenReset();
+        long fastest = sampleMin.getAndSet(Long.MAX_VALUE);
+        int peak = maxInFlightInWindow;
+        maxInFlightInWindow = inFlight.get();
+        if (count == 0) {
+            return;
+        }
+        double recent = (double) sum / count;
+        double current = limit;
+        if (baselineNanos == 0 || fastest < baselineNanos) {
+            baselineNanos = fastest;
+        } else if (peak < (int) current) {
+            // Only drift upwards from windows that never hit the limit, where nothing queued
+            baselineNanos = baselineNanos * (1 - BASELINE_DRIFT) + fastest * BASELINE_DRIFT;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / recent));
+        double target = current * gradient + Math.sqrt(current);
+        if (target > current && peak < current / 2) {
+            return;
+        }
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
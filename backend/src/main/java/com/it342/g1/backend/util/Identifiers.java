@@ -0,0 +1,14 @@
+package com.it342.g1.backend.util;
+
+import java.util.Locale;
+
+public final class Identifiers {
+
+    private Identifiers() {
+    }
+
+    // Canonical form stored in the *_normalized lookup columns
+    public static String normalize(String identifier) {
+        return identifier == null ? null : identifier.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,80 @@
+package com.it342.g1.backend.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one execution. The first caller
+ * (leader) runs the loader; callers arriving while it is in flight (followers) wait
+ * up to maxWaitMs for its result and fall back to loading on their own after that.
+ * Entries are removed as soon as the leader finishes, so results are never cached.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final long maxWaitMs;
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, long maxWaitMs, MeterRegistry registry) {
+        this.maxWaitMs = maxWaitMs;
+        this.leaders = counter(registry, name, "leader");
+        this.followers = counter(registry, name, "follower");
+        this.timeouts = counter(registry, name, "timeout");
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, mine);
+
+        if (inFlight == null) {
+            leaders.increment();
+            try {
+                V value = loader.get();
+                mine.complete(value);
+                return value;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                calls.remove(key, mine);
+            }
+        }
+
+        followers.increment();
+        try {
+            return inFlight.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        }
+    }
+
+    public int inFlightCount() {
+        return calls.size();
+    }
+
+    // Coalescing ratio = follower / (leader + follower)
+    private static Counter counter(MeterRegistry registry, String name, String role) {
+        return Counter.builder("singleflight.calls")
+                .tag("name", name)
+                .tag("role", role)
+                .register(registry);
+    }
+}
@@ -0,0 +1,177 @@
+package com.it342.g1.backend.warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.it342.g1.backend.dto.UserProfile;
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.service.AuthService;
+import com.it342.g1.backend.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises the login/register/profile hot paths (BCrypt, JWT signing and parsing,
+ * Jackson binding of the auth payloads, the UserRepository lookups) against throwaway
+ * data before the application reports ready, so the JIT has compiled them by the time
+ * the load balancer sends real traffic. Spring Boot only publishes ACCEPTING_TRAFFIC
+ * after every ApplicationRunner returns, so blocking here holds the readiness probe.
+ * Nothing is written to the database.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private static final TypeReference<Map<String, String>> PAYLOAD = new TypeReference<>() {};
+
+    // Far above any real user id, and short enough (18 digits) for FastTokenVerifier's fast path;
+    // a negative id would send every token to jjwt and leave the fast path cold
+    private static final long TOKEN_USER_ID = 999_999_999_999_999_999L;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${warmup.iterations:5000}")
+    private int iterations;
+
+    @Value("${warmup.bcrypt-iterations:20}")
+    private int bcryptIterations;
+
+    @Value("${warmup.query-iterations:500}")
+    private int queryIterations;
+
+    private volatile boolean cancelled;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Thread worker = new Thread(this::warmUp, "startup-warmup");
+        worker.setDaemon(true);
+        worker.start();
+        worker.join(timeoutMs);
+
+        boolean finished = !worker.isAlive();
+        cancelled = true;
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("startup.warmup", "outcome", finished ? "completed" : "timeout")
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (finished) {
+            log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } else {
+            log.warn("Warm-up timed out after {} ms; accepting traffic anyway", timeoutMs);
+        }
+    }
+
+    private void warmUp() {
+        try {
+            stage("bcrypt", this::hashing);
+            stage("jwt", this::tokens);
+            stage("jackson", this::json);
+            stage("repository", this::queries);
+        } catch (RuntimeException e) {
+            // A failed warm-up only costs speed, never startup
+            log.warn("Warm-up aborted", e);
+        }
+    }
+
+    private void stage(String name, Runnable body) {
+        if (cancelled) {
+            return;
+        }
+        long start = System.nanoTime();
+        body.run();
+        log.debug("Warm-up stage {} took {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void hashing() {
+        String password = "Warmup!" + UUID.randomUUID();
+        String hash = passwordEncoder.encode(password);
+        for (int i = 0; i < bcryptIterations && !cancelled; i++) {
+            passwordEncoder.matches(i % 2 == 0 ? password : "wrong", hash);
+        }
+    }
+
+    private void tokens() {
+        for (int i = 0; i < iterations && !cancelled; i++) {
+            String token = tokenProvider.generateToken("warmup_" + i, TOKEN_USER_ID - i);
+            tokenProvider.validateToken(token);
+            tokenProvider.authenticate(token);
+            tokenProvider.validateToken(token.substring(0, token.length() - 2) + "xx");
+            tokenProvider.revokeToken(token);
+        }
+    }
+
+    private void json() {
+        User user = new User();
+        user.setUserId(-1L);
+        user.setUsername("warmup");
+        user.setEmail("warmup@example.invalid");
+        user.setCreatedAt(LocalDateTime.now());
+        user.setLastLogin(LocalDateTime.now());
+        user.setIsActive(true);
+        UserProfile profile = UserProfile.from(user);
+        AuthService.AuthResponse response = new AuthService.AuthResponse("token", "refresh", 900L, "warmup", "warmup@example.invalid");
+        String login = "{\"username\":\"warmup\",\"password\":\"Warmup!123\"}";
+        String register = "{\"username\":\"warmup\",\"email\":\"warmup@example.invalid\",\"password\":\"Warmup!123\"}";
+        try {
+            for (int i = 0; i < iterations && !cancelled; i++) {
+                objectMapper.readValue(i % 2 == 0 ? login : register, PAYLOAD);
+                objectMapper.writeValueAsString(response);
+                objectMapper.writeValueAsString(profile);
+                objectMapper.writeValueAsString(Map.of("error", "Invalid credentials"));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Jackson warm-up failed", e);
+        }
+    }
+
+    // Lookups for keys that cannot exist, so every query runs and nothing is touched
+    private void queries() {
+        for (int i = 0; i < queryIterations && !cancelled; i++) {
+            String key = "warmup-" + UUID.randomUUID();
+            userService.findByUsername(key);
+            userService.findByEmail(key + "@example.invalid");
+            userRepository.existsByUsernameNormalized(key);
+            userRepository.existsByEmailNormalized(key + "@example.invalid");
+            userRepository.findVersionByUserId(0L);
+        }
+    }
+}
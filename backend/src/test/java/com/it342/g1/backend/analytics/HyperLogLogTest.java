@@ -0,0 +1,84 @@
+package com.it342.g1.backend.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    // Four standard errors (~0.8% each) keeps the check deterministic for these fixed inputs
+    private static final double TOLERANCE = 0.033;
+
+    @Test
+    void emptyAndSmallSetsAreExact() {
+        assertEquals(0, new HyperLogLog().estimate());
+        HyperLogLog sketch = sketchOf(1, 20);
+        for (long id = 1; id <= 20; id++) {
+            sketch.add(id); // duplicates do not count twice
+        }
+        assertEquals(20, sketch.estimate());
+    }
+
+    @Test
+    void estimatesStayWithinTheErrorBound() {
+        for (int n : new int[] { 1_000, 30_000, 200_000, 1_000_000 }) {
+            assertWithin(n, sketchOf(1, n).estimate());
+        }
+    }
+
+    // Shard-tagged ids differ mostly in their high bits and must still spread over the registers
+    @Test
+    void shardTaggedIdsEstimateLikeSequentialOnes() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long shard = 0; shard < 4; shard++) {
+            for (long id = 1; id <= 25_000; id++) {
+                sketch.add((shard << 40) + id);
+            }
+        }
+        assertWithin(100_000, sketch.estimate());
+    }
+
+    @Test
+    void mergeCountsTheUnion() {
+        HyperLogLog first = sketchOf(1, 60_000);
+        HyperLogLog second = sketchOf(40_001, 100_000);
+        first.merge(second);
+        assertWithin(100_000, first.estimate());
+
+        long union = first.estimate();
+        first.merge(second);
+        assertEquals(union, first.estimate(), "merging the same sketch again changes nothing");
+        assertWithin(60_000, second.estimate());
+    }
+
+    @Test
+    void roundTripsThroughItsBinaryForm() throws IOException {
+        HyperLogLog sketch = sketchOf(1, 50_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        assertEquals(HyperLogLog.REGISTERS, bytes.size());
+
+        HyperLogLog restored = HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(sketch.estimate(), restored.estimate());
+    }
+
+    private static HyperLogLog sketchOf(long from, long to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = from; id <= to; id++) {
+            sketch.add(id);
+        }
+        return sketch;
+    }
+
+    private static void assertWithin(long expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(error <= TOLERANCE, "estimated " + estimate + " for " + expected + " distinct values");
+    }
+}
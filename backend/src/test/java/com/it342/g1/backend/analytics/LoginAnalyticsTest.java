@@ -0,0 +1,113 @@
+package com.it342.g1.backend.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginAnalyticsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void countsDistinctUsersPerDayAndMonth() {
+        LoginAnalytics analytics = analytics("");
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (long id = 1; id <= 100; id++) {
+            analytics.recordLogin(id);
+            analytics.recordLogin(id);
+        }
+        analytics.recordLogin(500L, today.minusDays(1));
+        analytics.recordFailure();
+        analytics.recordLockout();
+
+        assertEquals(100, analytics.dailyActiveUsers(today));
+        assertEquals(1, analytics.dailyActiveUsers(today.minusDays(1)));
+        assertEquals(101, analytics.activeUsersOverDays(2));
+
+        Map<String, Object> snapshot = analytics.snapshot(2, 2);
+        assertEquals(100L, snapshot.get("dau"));
+        assertEquals(201L, recent(snapshot, "logins"));
+        assertEquals(1L, recent(snapshot, "failures"));
+        assertEquals(1L, recent(snapshot, "lockouts"));
+    }
+
+    // Token refreshes count users as active without showing up as logins
+    @Test
+    void activityCountsTowardsActiveUsersButNotLogins() {
+        LoginAnalytics analytics = analytics("");
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        analytics.recordLogin(1L);
+        analytics.recordActivity(1L);
+        analytics.recordActivity(2L);
+
+        assertEquals(2, analytics.dailyActiveUsers(today));
+        assertEquals(2, analytics.activeUsersOverDays(30));
+        assertEquals(1L, recent(analytics.snapshot(1, 2), "logins"));
+    }
+
+    @Test
+    void checkpointSurvivesARestart() {
+        String path = dir.resolve("analytics/login.bin").toString();
+        LoginAnalytics before = analytics(path);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (long id = 1; id <= 1000; id++) {
+            before.recordLogin(id);
+        }
+        before.recordLogin(7L, today.minusDays(3));
+        before.recordFailure();
+        before.checkpoint();
+        assertTrue(Files.exists(Path.of(path)));
+
+        LoginAnalytics after = analytics(path);
+        assertEquals(before.dailyActiveUsers(today), after.dailyActiveUsers(today));
+        assertEquals(1, after.dailyActiveUsers(today.minusDays(3)));
+        assertEquals(before.monthlyActiveUsers(YearMonth.from(today)), after.monthlyActiveUsers(YearMonth.from(today)));
+        assertEquals(1001L, recent(after.snapshot(1, 2), "logins"));
+        assertEquals(1L, recent(after.snapshot(1, 2), "failures"));
+    }
+
+    // Old sketches are dropped on schedule even when no checkpoint file is configured
+    @Test
+    void prunesWithoutACheckpointPath() {
+        LoginAnalytics analytics = analytics("");
+        LocalDate old = LocalDate.now(ZoneOffset.UTC).minusDays(100);
+        analytics.recordLogin(1L, old);
+        analytics.recordLogin(1L, old.minusYears(2));
+        assertEquals(1, analytics.dailyActiveUsers(old));
+
+        analytics.checkpoint();
+
+        assertEquals(0, analytics.dailyActiveUsers(old));
+        assertEquals(0, analytics.monthlyActiveUsers(YearMonth.from(old.minusYears(2))));
+        assertEquals(1, analytics.monthlyActiveUsers(YearMonth.from(old)), "months are kept longer than days");
+    }
+
+    // Totals over the snapshot's minutes, so a test that straddles a minute boundary still adds up
+    private static long recent(Map<String, Object> snapshot, String kind) {
+        long total = 0;
+        for (Object minute : (List<?>) snapshot.get("perMinute")) {
+            total += (Long) ((Map<?, ?>) minute).get(kind);
+        }
+        return total;
+    }
+
+    private static LoginAnalytics analytics(String checkpointPath) {
+        LoginAnalytics analytics = new LoginAnalytics();
+        ReflectionTestUtils.setField(analytics, "checkpointPath", checkpointPath);
+        ReflectionTestUtils.setField(analytics, "windowMinutes", 60);
+        analytics.init();
+        return analytics;
+    }
+}
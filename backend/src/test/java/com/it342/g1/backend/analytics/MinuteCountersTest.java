@@ -0,0 +1,84 @@
+package com.it342.g1.backend.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MinuteCountersTest {
+
+    private static final long MINUTE = 29_000_000L;
+
+    @Test
+    void countsPerMinuteAndKind() {
+        MinuteCounters counters = new MinuteCounters(60, 3);
+        counters.increment(0, MINUTE);
+        counters.increment(0, MINUTE);
+        counters.increment(2, MINUTE);
+        counters.increment(0, MINUTE + 1);
+
+        assertEquals(2, counters.get(0, MINUTE));
+        assertEquals(0, counters.get(1, MINUTE));
+        assertEquals(1, counters.get(2, MINUTE));
+        assertEquals(1, counters.get(0, MINUTE + 1));
+        assertEquals(0, counters.get(0, MINUTE - 1));
+    }
+
+    // A minute one window later reuses the slot and starts from zero
+    @Test
+    void slotsRollOverToTheNewMinute() {
+        MinuteCounters counters = new MinuteCounters(60, 1);
+        for (int i = 0; i < 5; i++) {
+            counters.increment(0, MINUTE);
+        }
+        counters.increment(0, MINUTE + 60);
+
+        assertEquals(1, counters.get(0, MINUTE + 60));
+        assertEquals(0, counters.get(0, MINUTE), "the old minute has left the window");
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        MinuteCounters counters = new MinuteCounters(60, 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counters.increment(0, MINUTE);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, counters.get(0, MINUTE));
+    }
+
+    @Test
+    void checkpointRestoresOnlyTheSameShape() throws IOException {
+        MinuteCounters counters = new MinuteCounters(60, 3);
+        counters.increment(1, MINUTE);
+        counters.increment(1, MINUTE);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        counters.writeTo(new DataOutputStream(bytes));
+
+        MinuteCounters restored = new MinuteCounters(60, 3);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(2, restored.get(1, MINUTE));
+
+        MinuteCounters resized = new MinuteCounters(30, 3);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        resized.readFrom(in);
+        assertEquals(0, resized.get(1, MINUTE));
+        assertEquals(0, in.available(), "the whole checkpoint section is consumed");
+    }
+}
@@ -0,0 +1,116 @@
+package com.it342.g1.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.it342.g1.backend.service.AuthService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BinaryContentNegotiationTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        authService.registerUser("Binary_User", "binary@example.com", PASSWORD);
+        token = authService.loginUser("binary_user", PASSWORD).getToken();
+    }
+
+    @Test
+    void cborIsReturnedWhenAccepted() throws Exception {
+        byte[] body = mvc.perform(profile().accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("Binary_User", cborMapper.readValue(body, Map.class).get("username"));
+    }
+
+    @Test
+    void smileIsReturnedWhenAccepted() throws Exception {
+        byte[] body = mvc.perform(profile().accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("Binary_User", smileMapper.readValue(body, Map.class).get("username"));
+    }
+
+    // Clients that do not ask for a binary type keep getting JSON
+    @Test
+    void jsonStaysTheDefault() throws Exception {
+        mvc.perform(profile())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.username").value("Binary_User"));
+        mvc.perform(profile().accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.username").value("Binary_User"));
+    }
+
+    @Test
+    void cborRequestBodyIsRead() throws Exception {
+        byte[] login = cborMapper.writeValueAsBytes(Map.of("username", "binary_user", "password", PASSWORD));
+        mvc.perform(post("/api/auth/login").contentType(CBOR).content(login))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.username").value("Binary_User"));
+    }
+
+    // The pre-serialized JSON error bodies are bypassed for binary clients
+    @Test
+    void errorBodiesUseTheRequestedBinaryType() throws Exception {
+        byte[] login = cborMapper.writeValueAsBytes(Map.of("username", "binary_user", "password", "Wr0ng!Pass"));
+        byte[] body = mvc.perform(post("/api/auth/login").contentType(CBOR).accept(CBOR).content(login))
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().contentType(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(Map.of("error", "Invalid credentials"), cborMapper.readValue(body, Map.class));
+
+        body = mvc.perform(patch("/api/user/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .accept(SMILE).contentType(SMILE)
+                        .content(smileMapper.writeValueAsBytes(Map.of("nickname", "x"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(Map.of("error", "Field 'nickname' cannot be updated"), smileMapper.readValue(body, Map.class));
+    }
+
+    private MockHttpServletRequestBuilder profile() {
+        return get("/api/user/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
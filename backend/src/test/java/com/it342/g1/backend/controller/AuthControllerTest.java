@@ -0,0 +1,66 @@
+package com.it342.g1.backend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Bodies with a field missing are bad input, answered with the usual typed errors rather than a 500
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void registerWithoutUsernameIs400() throws Exception {
+        register("{\"email\":\"missing.username@example.com\",\"password\":\"Str0ng!Pass\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Username must be 3-20 characters, alphanumeric and underscore only"));
+    }
+
+    @Test
+    void registerWithoutEmailIs400() throws Exception {
+        register("{\"username\":\"Missing_Email\",\"password\":\"Str0ng!Pass\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid email format"));
+    }
+
+    @Test
+    void registerWithoutPasswordIs400() throws Exception {
+        register("{\"username\":\"Missing_Password\",\"email\":\"missing.password@example.com\"}")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(
+                        "Password must be at least 8 characters with uppercase, lowercase, number, and special character"));
+    }
+
+    @Test
+    void loginWithoutUsernameIs401() throws Exception {
+        login("{\"password\":\"Str0ng!Pass\"}")
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Invalid credentials"));
+    }
+
+    @Test
+    void loginWithoutPasswordIs401() throws Exception {
+        login("{\"username\":\"someone\"}")
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Invalid credentials"));
+    }
+
+    private ResultActions register(String body) throws Exception {
+        return mvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    private ResultActions login(String body) throws Exception {
+        return mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+}
@@ -0,0 +1,74 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.service.AuthService;
+import com.it342.g1.backend.service.UserArchiveService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class InternalUserControllerTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserArchiveService userArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void batchIncludesArchivedUsers() throws Exception {
+        authService.registerUser("Batch_Hot", "batch.hot@example.com", PASSWORD);
+        authService.registerUser("Batch_Cold", "batch.cold@example.com", PASSWORD);
+        long hot = userId("Batch_Hot");
+        long cold = userId("Batch_Cold");
+        jdbc.update("UPDATE users SET created_at = TIMESTAMP '2000-01-01 00:00:00', last_login = NULL "
+                + "WHERE username = 'Batch_Cold'");
+        userArchiveService.archiveDormantUsers();
+
+        mvc.perform(batch("{\"userIds\":[" + hot + "," + cold + ",987654321]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.users[?(@.userId == " + cold + ")].username").value("Batch_Cold"))
+                .andExpect(jsonPath("$.missing[0]").value(987654321));
+    }
+
+    // Malformed input is answered by the shared handler, not echoed back from a catch-all
+    @Test
+    void invalidBatchesAre400() throws Exception {
+        mvc.perform(batch("{\"userIds\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("userIds is required"));
+        mvc.perform(batch("{\"userIds\":[\"abc\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long userId(String username) {
+        return jdbc.queryForObject("SELECT user_id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    private static MockHttpServletRequestBuilder batch(String body) {
+        return post("/api/internal/users/batch")
+                .with(user("internal-service").roles("INTERNAL"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+    }
+}
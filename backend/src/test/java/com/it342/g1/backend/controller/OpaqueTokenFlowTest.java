@@ -0,0 +1,76 @@
+package com.it342.g1.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.it342.g1.backend.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Opaque session tokens through the real security chain, from login to logout
+@SpringBootTest(properties = "auth.token-mode=opaque")
+@AutoConfigureMockMvc
+class OpaqueTokenFlowTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void sessionTokenReachesTheProfileUntilLogout() throws Exception {
+        authService.registerUser("Opaque_User", "opaque@example.com", PASSWORD);
+        JsonNode login = objectMapper.readTree(mvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"opaque_user\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String token = login.get("token").asText();
+        assertEquals(24, token.length());
+
+        mvc.perform(authorized(get("/api/user/profile"), token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("Opaque_User"));
+        mvc.perform(authorized(put("/api/user/profile"), token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"opaque.new@example.com\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("opaque.new@example.com"));
+
+        mvc.perform(authorized(post("/api/auth/logout"), token))
+                .andExpect(status().isOk());
+
+        // A revoked session is a 401 like an expired JWT, so clients refresh instead of failing
+        mvc.perform(authorized(get("/api/user/profile"), token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Invalid token"));
+    }
+
+    @Test
+    void unknownSessionTokenIs401() throws Exception {
+        mvc.perform(authorized(get("/api/user/profile"), "AAAAAAAAAAAAAAAAAAAAAAAA"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, String token) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
@@ -0,0 +1,198 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.migration.NormalizedIdentifierBackfill;
+import com.it342.g1.backend.service.AuthService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL budget per endpoint scenario, counted with Hibernate statistics. A change that adds
+ * a statement or loads more rows than the budget fails the build; when a change lowers
+ * the numbers, lower the budget with it. The measured table is printed after the run.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private NormalizedIdentifierBackfill backfill;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final Map<String, String> report = new TreeMap<>();
+    private String token;
+    private String refreshToken;
+    private int editorEmails;
+
+    @BeforeAll
+    void setUp() throws InterruptedException {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Until the backfill finishes, misses fall back to a second lookup
+        for (int i = 0; i < 200 && !backfill.isComplete(); i++) {
+            Thread.sleep(25);
+        }
+        assertTrue(backfill.isComplete());
+        authService.registerUser("Budget_User", "budget@example.com", PASSWORD);
+        authService.registerUser("Budget_Editor", "budget.editor@example.com", PASSWORD);
+    }
+
+    @BeforeEach
+    void freshToken() {
+        AuthService.AuthResponse login = authService.loginUser("budget_user", PASSWORD);
+        token = login.getToken();
+        refreshToken = login.getRefreshToken();
+    }
+
+    @AfterAll
+    void printReport() {
+        StringBuilder table = new StringBuilder("\nSQL budget per endpoint (statements / rows):\n");
+        report.forEach((scenario, usage) -> table.append(String.format("  %-40s %s%n", scenario, usage)));
+        System.out.println(table);
+    }
+
+    @Test
+    void register() throws Exception {
+        assertBudget("POST /api/auth/register", 200, 7, 0, post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"Budget_New\",\"email\":\"budget.new@example.com\",\"password\":\"" + PASSWORD + "\"}"));
+    }
+
+    @Test
+    void loginByUsername() throws Exception {
+        assertBudget("POST /api/auth/login (username)", 200, 3, 1, login("Budget_User", PASSWORD));
+    }
+
+    @Test
+    void loginByEmail() throws Exception {
+        assertBudget("POST /api/auth/login (email)", 200, 4, 1, login("budget@example.com", PASSWORD));
+    }
+
+    @Test
+    void loginWrongPassword() throws Exception {
+        assertBudget("POST /api/auth/login (bad password)", 401, 3, 2, login("Budget_User", "Wr0ng!Pass"));
+        authService.loginUser("budget_user", PASSWORD); // reset failed attempts
+    }
+
+    @Test
+    void loginUnknownUser() throws Exception {
+        assertBudget("POST /api/auth/login (unknown)", 401, 3, 0, login("nobody_here", PASSWORD));
+    }
+
+    // No user row read and no BCrypt: token lookup, mark used, insert the successor, and the
+    // throttled last_login UPDATE (which matches no row within the interval)
+    @Test
+    void refresh() throws Exception {
+        assertBudget("POST /api/auth/refresh", 200, 4, 1, post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+    }
+
+    @Test
+    void logout() throws Exception {
+        assertBudget("POST /api/auth/logout", 200, 0, 0, post("/api/auth/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    @Test
+    void getProfile() throws Exception {
+        assertBudget("GET /api/user/profile", 200, 1, 1, authorized(get("/api/user/profile")));
+    }
+
+    @Test
+    void revalidateProfile() throws Exception {
+        String etag = mvc.perform(authorized(get("/api/user/profile")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertBudget("GET /api/user/profile (If-None-Match)", 304, 1, 1, authorized(get("/api/user/profile"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+    }
+
+    // Updates change the email of a separate user, so the login-by-email scenario keeps working.
+    // Both check that no archived account holds the email; then PUT reads the entity and flushes
+    // one UPDATE, and PATCH runs a single targeted UPDATE.
+    @Test
+    void replaceProfile() throws Exception {
+        assertBudget("PUT /api/user/profile (new email)", 200, 3, 1, asEditor(put("/api/user/profile"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + nextEditorEmail() + "\"}"));
+    }
+
+    @Test
+    void patchProfile() throws Exception {
+        assertBudget("PATCH /api/user/profile (new email)", 200, 2, 0, asEditor(patch("/api/user/profile"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + nextEditorEmail() + "\"}"));
+    }
+
+    private MockHttpServletRequestBuilder login(String identifier, String password) {
+        return post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + identifier + "\",\"password\":\"" + password + "\"}");
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private MockHttpServletRequestBuilder asEditor(MockHttpServletRequestBuilder request) {
+        String editorToken = authService.loginUser("budget_editor", PASSWORD).getToken();
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + editorToken);
+    }
+
+    private String nextEditorEmail() {
+        return "budget.editor" + (++editorEmails) + "@example.com";
+    }
+
+    private void assertBudget(String scenario, int expectedStatus, long maxStatements, long maxRows,
+                              RequestBuilder request) throws Exception {
+        statistics.clear();
+        mvc.perform(request).andExpect(status().is(expectedStatus));
+        long statements = statistics.getPrepareStatementCount();
+        long rows = rowsFetched();
+        report.put(scenario, statements + " / " + rows + "  (budget " + maxStatements + " / " + maxRows + ")");
+        assertTrue(statements <= maxStatements,
+                scenario + " ran " + statements + " SQL statements; budget is " + maxStatements);
+        assertTrue(rows <= maxRows,
+                scenario + " fetched " + rows + " rows; budget is " + maxRows);
+    }
+
+    // Rows returned by queries plus entities loaded by id
+    private long rowsFetched() {
+        long rows = statistics.getEntityFetchCount();
+        for (String query : statistics.getQueries()) {
+            rows += statistics.getQueryStatistics(query).getExecutionRowCount();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,88 @@
+package com.it342.g1.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The web client's recovery from an expired access token, through the real security chain
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenRefreshFlowTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void expiredAccessTokenIs401AndARefreshedOneIsAccepted() throws Exception {
+        authService.registerUser("Refresh_Flow", "refresh.flow@example.com", PASSWORD);
+
+        // Log in while access tokens live for a millisecond, so the one we get is already expired
+        long lifetime = tokenProvider.getExpirationMs();
+        JsonNode login;
+        try {
+            tokenProvider.setExpirationMs(1);
+            login = json(mvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"refresh_flow\",\"password\":\"" + PASSWORD + "\"}"))
+                    .andExpect(status().isOk()));
+        } finally {
+            tokenProvider.setExpirationMs(lifetime);
+        }
+        Thread.sleep(1100); // JWT expiry has one-second resolution
+
+        mvc.perform(profile(login.get("token").asText()).header(HttpHeaders.ORIGIN, "http://localhost:3000"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "http://localhost:3000"))
+                .andExpect(jsonPath("$.error").value("Invalid token"));
+
+        JsonNode refreshed = json(mvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + login.get("refreshToken").asText() + "\"}"))
+                .andExpect(status().isOk()));
+        assertNotEquals(login.get("refreshToken").asText(), refreshed.get("refreshToken").asText());
+
+        mvc.perform(profile(refreshed.get("token").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("Refresh_Flow"));
+
+        // The rotated-out refresh token cannot be exchanged again
+        mvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + login.get("refreshToken").asText() + "\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static MockHttpServletRequestBuilder profile(String token) {
+        return get("/api/user/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private JsonNode json(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,270 @@
+package com.it342.g1.backend.controller;
+
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.service.AuthService;
+import com.it342.g1.backend.service.UserService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserControllerTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private TokenProvider tokenProvider;
+
+    @SpyBean
+    private UserService userService;
+
+    private String token;
+
+    @BeforeAll
+    void setUp() {
+        authService.registerUser("Etag_User", "etag@example.com", PASSWORD);
+        authService.registerUser("Etag_Other", "etag.other@example.com", PASSWORD);
+    }
+
+    @BeforeEach
+    void freshToken() {
+        token = authService.loginUser("etag_user", PASSWORD).getToken();
+    }
+
+    @Test
+    void profileCarriesVersionETag() throws Exception {
+        mvc.perform(authorized(get("/api/user/profile")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, matchesPattern("\"\\d+-\\d+\"")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        String etag = currentETag();
+        mvc.perform(authorized(get("/api/user/profile")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void staleIfNoneMatchReturnsProfile() throws Exception {
+        mvc.perform(authorized(get("/api/user/profile")).header(HttpHeaders.IF_NONE_MATCH, "\"0-0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("Etag_User"));
+    }
+
+    @Test
+    void staleIfMatchIsRejected() throws Exception {
+        String stale = currentETag();
+        String fresh = mvc.perform(authorized(put("/api/user/profile"))
+                        .header(HttpHeaders.IF_MATCH, stale)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"etag.first@example.com\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(stale, fresh);
+
+        mvc.perform(authorized(put("/api/user/profile"))
+                        .header(HttpHeaders.IF_MATCH, stale)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"etag.second@example.com\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(authorized(get("/api/user/profile")))
+                .andExpect(header().string(HttpHeaders.ETAG, fresh))
+                .andExpect(jsonPath("$.email").value("etag.first@example.com"));
+    }
+
+    @Test
+    void patchUpdatesEmailAndAdvancesETag() throws Exception {
+        String etag = currentETag();
+        String next = mvc.perform(patchEmail(etag, "etag.patched@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("etag.patched@example.com"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, next);
+        mvc.perform(authorized(get("/api/user/profile")))
+                .andExpect(header().string(HttpHeaders.ETAG, next));
+    }
+
+    // Failed logins are not part of the profile, so they must not invalidate its ETag
+    @Test
+    void failedLoginKeepsETag() throws Exception {
+        String etag = currentETag();
+        mvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"etag_user\",\"password\":\"Wr0ng!Pass\"}"))
+                .andExpect(status().isUnauthorized());
+
+        mvc.perform(authorized(get("/api/user/profile")))
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mvc.perform(authorized(put("/api/user/profile"))
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"etag.after.failure@example.com\"}"))
+                .andExpect(status().isOk());
+
+        // The PUT saves the whole entity; the failure must still be counted afterwards
+        Long userId = Long.valueOf(etag.substring(1, etag.indexOf('-')));
+        assertEquals(1, userRepository.findLoginAttemptState(userId).orElseThrow().getFailedLoginAttempts());
+    }
+
+    @Test
+    void patchRejectsNonPatchableField() throws Exception {
+        mvc.perform(authorized(patch("/api/user/profile"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"Someone_Else\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Field 'username' cannot be updated"));
+    }
+
+    // Framework failures keep their own status instead of the IllegalArgumentException 400
+    @Test
+    void patchWithUnsupportedContentTypeIs415() throws Exception {
+        mvc.perform(authorized(patch("/api/user/profile"))
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("email=etag.plain@example.com"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    // 401 (not 403) is what tells clients to refresh the access token
+    @Test
+    void missingOrInvalidTokenIs401() throws Exception {
+        mvc.perform(get("/api/user/profile"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"))
+                .andExpect(jsonPath("$.error").value("Invalid token"));
+        mvc.perform(get("/api/user/profile").header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    // The security filter verifies the token once; controllers read its principal instead of parsing it again
+    @Test
+    void tokenIsVerifiedOncePerRequest() throws Exception {
+        String etag = currentETag();
+        assertVerifiedOnce(authorized(get("/api/user/profile")), 200);
+        assertVerifiedOnce(authorized(get("/api/user/profile")).header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+        assertVerifiedOnce(authorized(put("/api/user/profile")).contentType(MediaType.APPLICATION_JSON).content("{}"), 200);
+        assertVerifiedOnce(patchEmail(null, "etag@example.com"), 200);
+    }
+
+    private void assertVerifiedOnce(MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        clearInvocations(tokenProvider);
+        mvc.perform(request).andExpect(status().is(expectedStatus));
+        verify(tokenProvider, times(1)).authenticate(token);
+        verify(tokenProvider, never()).validateToken(any());
+    }
+
+    @Test
+    void patchWithStaleVersionIsRejected() throws Exception {
+        String stale = currentETag();
+        mvc.perform(patchEmail(stale, "etag.race@example.com")).andExpect(status().isOk());
+        mvc.perform(patchEmail(stale, "etag.lost@example.com"))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(authorized(get("/api/user/profile")))
+                .andExpect(jsonPath("$.email").value("etag.race@example.com"));
+    }
+
+    @Test
+    void patchToTakenEmailConflicts() throws Exception {
+        mvc.perform(patchEmail(null, "ETAG.other@example.com"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Email already exists"));
+    }
+
+    // PUT applies the same email rules as PATCH
+    @Test
+    void putToTakenEmailConflicts() throws Exception {
+        mvc.perform(authorized(put("/api/user/profile"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"ETAG.other@example.com\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Email already exists"));
+    }
+
+    // Conflicts are answered through AccountConflictException only; a framework duplicate-key error is a 500
+    // whose body carries none of its SQL or constraint text
+    @Test
+    void frameworkDuplicateKeyErrorDoesNotLeak() throws Exception {
+        doThrow(new DuplicateKeyException("could not execute statement; SQL [update users set email=?]; "
+                + "constraint [UK_USERS_EMAIL]")).when(userService).saveProfile(any());
+        mvc.perform(authorized(put("/api/user/profile"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"etag.leak@example.com\"}"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().json("{\"error\":\"Internal server error\"}", true));
+    }
+
+    @Test
+    void putWithInvalidOrNullEmailIs400() throws Exception {
+        for (String body : new String[] { "{\"email\":\"not-an-email\"}", "{\"email\":null}" }) {
+            mvc.perform(authorized(put("/api/user/profile"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("Invalid email format"));
+        }
+    }
+
+    @Test
+    void patchForMissingUserIsNotFound() throws Exception {
+        String ghost = tokenProvider.generateToken("ghost_user", 987654321L);
+        mvc.perform(patch("/api/user/profile")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + ghost)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"ghost@example.com\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    private MockHttpServletRequestBuilder patchEmail(String ifMatch, String email) {
+        MockHttpServletRequestBuilder request = authorized(patch("/api/user/profile"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\"}");
+        return ifMatch == null ? request : request.header(HttpHeaders.IF_MATCH, ifMatch);
+    }
+
+    private String currentETag() throws Exception {
+        return mvc.perform(authorized(get("/api/user/profile")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
@@ -0,0 +1,91 @@
+package com.it342.g1.backend.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.it342.g1.backend.service.AuthService;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Payload size and encode/decode cost of JSON vs CBOR vs Smile for the login response and
+ * the profile body, using mappers configured like the application's converters. Not a
+ * unit test; run it directly:
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.it342.g1.backend.dto.PayloadEncodingBenchmark
+ *
+ * Decoding targets a generic Map, which is what a client without shared DTOs would do.
+ */
+public class PayloadEncodingBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 500_000;
+
+    // Keeps the JIT from discarding the measured work
+    private static volatile long blackhole;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", mapper(new JsonFactory()));
+        mappers.put("cbor", mapper(new CBORFactory()));
+        mappers.put("smile", mapper(new SmileFactory()));
+
+        // An HS384 JWT of realistic length; the token dominates the login response whatever the encoding
+        String token = "eyJhbGciOiJIUzM4NCJ9.eyJzdWIiOiJqdWFuX2RlbGFjcnV6IiwidXNlcklkIjo0MjEsImlhdCI6MTc2MDg2NzIwMCwiZXhwIjoxNzYwOTUzNjAwfQ."
+                + "kq3V0ZyQ2Yp9tN4v8Hc1mWzXbLrA6sDfGjKlP0oIuYtReWqAsDfGhJkLzXcVbNm1";
+        Object login = new AuthService.AuthResponse(token, "hR2q8Zt0vXw4yB6nLcJ1sK9dF3gA7mE5pU0iO2aQ4rT", 900L,
+                "juan_delacruz", "juan.delacruz@example.com");
+        Object profile = new UserProfile(421L, "juan_delacruz", "juan.delacruz@example.com",
+                LocalDateTime.of(2025, 6, 3, 9, 15, 27), LocalDateTime.of(2026, 10, 19, 7, 42, 5), true, 7L);
+
+        System.out.printf("%-8s %-6s %8s %14s %14s%n", "payload", "format", "bytes", "encode ns/op", "decode ns/op");
+        Map<String, Object> payloads = new LinkedHashMap<>();
+        payloads.put("login", login);
+        payloads.put("profile", profile);
+        for (Map.Entry<String, Object> payload : payloads.entrySet()) {
+            for (Map.Entry<String, ObjectMapper> format : mappers.entrySet()) {
+                run(payload.getKey(), format.getKey(), format.getValue(), payload.getValue());
+            }
+        }
+    }
+
+    private static void run(String payloadName, String formatName, ObjectMapper mapper, Object payload) throws Exception {
+        byte[] encoded = mapper.writeValueAsBytes(payload);
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += mapper.writeValueAsBytes(payload).length;
+            sink += mapper.readValue(encoded, Map.class).size();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += mapper.writeValueAsBytes(payload).length;
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += mapper.readValue(encoded, Map.class).size();
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        blackhole += sink;
+
+        System.out.printf("%-8s %-6s %8d %14.1f %14.1f%n", payloadName, formatName, encoded.length,
+                (double) encodeNanos / MEASURED_ITERATIONS, (double) decodeNanos / MEASURED_ITERATIONS);
+    }
+
+    // Same settings Spring Boot applies to the JSON converter
+    private static ObjectMapper mapper(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.it342.g1.backend.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void invalidInputIs400WithItsMessage() {
+        ResponseEntity<?> response = handler.handleInvalid(new IllegalArgumentException("Invalid email format"));
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals(Map.of("error", "Invalid email format"), response.getBody());
+    }
+
+    // Unexpected failures are server errors and do not echo internals back to the client
+    @Test
+    void unexpectedFailureIs500WithoutDetails() {
+        ResponseEntity<?> response = handler.handleOther(new IllegalStateException("pool exhausted on shard-1"),
+                new MockHttpServletRequest("GET", "/api/user/profile"));
+        assertEquals(500, response.getStatusCodeValue());
+        assertEquals(Map.of("error", "Internal server error"), response.getBody());
+    }
+}
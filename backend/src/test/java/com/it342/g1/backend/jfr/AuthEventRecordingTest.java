@@ -0,0 +1,142 @@
+package com.it342.g1.backend.jfr;
+
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import com.it342.g1.backend.service.AuthService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthEventRecordingTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+    private static final RequestPostProcessor INTERNAL = user("internal-service").roles("INTERNAL");
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void loginEmitsPipelineEventsWithOutcomeAndUser() throws Exception {
+        authService.registerUser("Jfr_User", "jfr@example.com", PASSWORD);
+        long userId = jdbc.queryForObject("SELECT user_id FROM users WHERE username = 'Jfr_User'", Long.class);
+
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("auth-events-", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(LoginEvent.class);
+            recording.enable(PasswordHashEvent.class);
+            recording.enable(RepositoryCallEvent.class);
+            recording.start();
+            assertThrows(InvalidCredentialsException.class, () -> authService.loginUser("jfr_user", "Wr0ng!Pass"));
+            authService.loginUser("jfr_user", PASSWORD);
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getLong("userId") == userId)
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        assertEquals(List.of("InvalidCredentials", "success"), outcomes(events, "com.it342.g1.Login"));
+        assertEquals(List.of("mismatch", "match"), outcomes(events, "com.it342.g1.PasswordHash"));
+        assertTrue(events.stream().anyMatch(event -> is(event, "com.it342.g1.RepositoryCall")
+                && event.getString("repository").equals("UserRepository")
+                && event.getString("method").equals("recordFailedLogin")
+                && event.getString("outcome").equals("ok")), events::toString);
+        assertTrue(events.stream().anyMatch(event -> is(event, "com.it342.g1.RepositoryCall")
+                && event.getString("method").equals("recordSuccessfulLogin")), events::toString);
+    }
+
+    // Requested age and size are clamped to 1 minute..24 hours and 1 MB..1 GB; only one recording runs at a time
+    @Test
+    void recordingEndpointsEnforceTheirBounds() throws Exception {
+        mvc.perform(internal(post("/api/internal/jfr/start")
+                        .param("maxAgeMinutes", "100000").param("maxSizeMb", "100000")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.maxAge").value("PT24H"))
+                .andExpect(jsonPath("$.maxSizeBytes").value(1024L * 1024 * 1024));
+        try {
+            mvc.perform(internal(post("/api/internal/jfr/start")))
+                    .andExpect(status().isConflict());
+            MvcResult dump = mvc.perform(internal(get("/api/internal/jfr/dump")))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            byte[] jfr = mvc.perform(asyncDispatch(dump))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertEquals("FLR", new String(jfr, 0, 3, StandardCharsets.US_ASCII));
+        } finally {
+            mvc.perform(internal(post("/api/internal/jfr/stop")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.state").value("STOPPED"));
+        }
+        mvc.perform(internal(post("/api/internal/jfr/stop")))
+                .andExpect(status().isConflict());
+
+        mvc.perform(internal(post("/api/internal/jfr/start")
+                        .param("maxAgeMinutes", "0").param("maxSizeMb", "-5")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxAge").value("PT1M"))
+                .andExpect(jsonPath("$.maxSizeBytes").value(1024 * 1024));
+        mvc.perform(internal(post("/api/internal/jfr/stop")))
+                .andExpect(status().isOk());
+
+        // Without the internal role the recorder is out of reach
+        mvc.perform(post("/api/internal/jfr/start"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static List<String> outcomes(List<RecordedEvent> events, String type) {
+        return events.stream()
+                .filter(event -> is(event, type))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .map(event -> event.getString("outcome"))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean is(RecordedEvent event, String type) {
+        return event.getEventType().getName().equals(type);
+    }
+
+    private static MockHttpServletRequestBuilder internal(MockHttpServletRequestBuilder request) {
+        return request.with(INTERNAL);
+    }
+}
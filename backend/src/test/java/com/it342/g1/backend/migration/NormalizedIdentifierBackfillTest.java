@@ -0,0 +1,55 @@
+package com.it342.g1.backend.migration;
+
+import com.it342.g1.backend.service.AuthService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class NormalizedIdentifierBackfillTest {
+
+    @Autowired
+    private NormalizedIdentifierBackfill backfill;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterEach
+    void removeLegacyRows() {
+        jdbc.update("DELETE FROM users WHERE username IN ('BACKFILL_TAKEN', 'Backfill_Legacy')");
+    }
+
+    // A colliding row is reported, but does not keep the exact-match fallbacks switched on forever
+    @Test
+    void completesDespiteConflicts() {
+        authService.registerUser("Backfill_Taken", "backfill.taken@example.com", "Str0ng!Pass");
+        insertLegacyRow("BACKFILL_TAKEN", "backfill.dup@example.com");
+        insertLegacyRow("Backfill_Legacy", "Backfill.Legacy@Example.com");
+
+        backfill.run();
+
+        assertTrue(backfill.isComplete());
+        assertEquals(1, backfill.getConflicts());
+        assertEquals("backfill_legacy", jdbc.queryForObject(
+                "SELECT username_normalized FROM users WHERE username = 'Backfill_Legacy'", String.class));
+        assertEquals("backfill.legacy@example.com", jdbc.queryForObject(
+                "SELECT email_normalized FROM users WHERE username = 'Backfill_Legacy'", String.class));
+        assertNull(jdbc.queryForObject(
+                "SELECT username_normalized FROM users WHERE username = 'BACKFILL_TAKEN'", String.class));
+    }
+
+    // A row as it was written before the normalized columns existed
+    private void insertLegacyRow(String username, String email) {
+        jdbc.update("INSERT INTO users (username, email, password, created_at, is_active, failed_login_attempts) "
+                + "VALUES (?, ?, 'x', CURRENT_TIMESTAMP, TRUE, 0)", username, email);
+    }
+}
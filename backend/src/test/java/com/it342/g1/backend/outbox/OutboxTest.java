@@ -0,0 +1,65 @@
+package com.it342.g1.backend.outbox;
+
+import com.it342.g1.backend.entity.OutboxEvent;
+import com.it342.g1.backend.repository.OutboxEventRepository;
+import com.it342.g1.backend.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class OutboxTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private InMemoryOutboxSink sink;
+
+    @BeforeEach
+    void drain() {
+        outboxDispatcher.poll();
+        sink.clear();
+    }
+
+    @Test
+    void registrationEventsAreDeliveredOnceAndRemoved() {
+        authService.registerUser("Outboxed", "outboxed@example.com", PASSWORD);
+        assertEquals(2, outboxEventRepository.countByStatus(OutboxEvent.PENDING));
+
+        outboxDispatcher.poll();
+
+        List<String> types = sink.getDelivered().stream().map(OutboxEvent::getEventType).collect(Collectors.toList());
+        assertEquals(List.of(Outbox.USER_CREATED, Outbox.WELCOME_EMAIL), types);
+        assertTrue(sink.getDelivered().get(1).getPayload().contains("outboxed@example.com"));
+        assertEquals(0, outboxEventRepository.count());
+
+        outboxDispatcher.poll();
+        assertEquals(2, sink.getDelivered().size());
+    }
+
+    @Test
+    void rejectedRegistrationWritesNoEvents() {
+        authService.registerUser("Outboxed_Twice", "twice@example.com", PASSWORD);
+        outboxDispatcher.poll();
+        sink.clear();
+
+        assertThrows(RuntimeException.class,
+                () -> authService.registerUser("Outboxed_Twice", "twice@example.com", PASSWORD));
+        assertEquals(0, outboxEventRepository.count());
+    }
+}
@@ -0,0 +1,136 @@
+package com.it342.g1.backend.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BreachedPasswordIndexTest {
+
+    // Prefixes at the edges of unsigned order, where a signed comparison would go wrong
+    private static final String[] BOUNDARY_LINES = {
+            "0000000000000000000000000000000000000000:1",
+            "FFFFFFFFFFFFFFFF000000000000000000000000:3",
+            "8000000000000000000000000000000000000000:2",
+            "7FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF:5",
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsEveryCorpusHashAndNothingElse() throws Exception {
+        List<String> lines = new ArrayList<>(List.of(BOUNDARY_LINES));
+        for (int i = 0; i < 2000; i++) {
+            lines.add(sha1Hex("breached-" + i) + ":" + (i + 1));
+        }
+        lines.add(sha1Hex("breached-7")); // duplicate without a count
+        lines.add("");
+        Path corpus = Files.write(dir.resolve("corpus.txt"), lines);
+        Path indexFile = dir.resolve("breached.idx");
+
+        assertEquals(2004, BreachedPasswordIndexBuilder.build(corpus, indexFile, false));
+        assertEquals(BreachedPasswordIndex.HEADER_BYTES + 2004 * 8, Files.size(indexFile));
+
+        BreachedPasswordIndex index = index(indexFile);
+        assertTrue(index.isEnabled());
+        assertEquals(2004, index.size());
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(index.isBreached("breached-" + i), "breached-" + i);
+        }
+        for (int i = 2000; i < 4000; i++) {
+            assertFalse(index.isBreached("breached-" + i), "breached-" + i);
+        }
+
+        assertTrue(index.containsPrefix(0L));
+        assertTrue(index.containsPrefix(-1L));
+        assertTrue(index.containsPrefix(Long.MIN_VALUE));
+        assertTrue(index.containsPrefix(Long.MAX_VALUE));
+        assertFalse(index.containsPrefix(1L));
+        assertFalse(index.containsPrefix(-2L));
+        assertFalse(index.containsPrefix(Long.MIN_VALUE + 1));
+        assertFalse(index.containsPrefix(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    void reloadsOnlyWhenTheFileChanges() throws Exception {
+        Path indexFile = dir.resolve("breached.idx");
+        BreachedPasswordIndexBuilder.build(Files.write(dir.resolve("first.txt"), List.of("password", "123456")),
+                indexFile, true);
+        BreachedPasswordIndex index = index(indexFile);
+        assertTrue(index.isBreached("password"));
+        FileTime firstModified = Files.getLastModifiedTime(indexFile);
+
+        BreachedPasswordIndexBuilder.build(Files.write(dir.resolve("second.txt"), List.of("hunter2")),
+                indexFile, true);
+
+        // Same modification time: the mapping in use is kept
+        Files.setLastModifiedTime(indexFile, firstModified);
+        index.reloadIfChanged();
+        assertEquals(2, index.size());
+
+        Files.setLastModifiedTime(indexFile, FileTime.fromMillis(firstModified.toMillis() + 5000));
+        index.reloadIfChanged();
+        assertEquals(1, index.size());
+        assertTrue(index.isBreached("hunter2"));
+        assertFalse(index.isBreached("password"));
+    }
+
+    @Test
+    void keepsThePreviousIndexWhenTheNewFileIsBroken() throws Exception {
+        Path indexFile = dir.resolve("breached.idx");
+        BreachedPasswordIndexBuilder.build(Files.write(dir.resolve("corpus.txt"), List.of("letmein")), indexFile, true);
+        BreachedPasswordIndex index = index(indexFile);
+
+        // Replaced by a move, as the builder does; the mapped file itself is never rewritten
+        Path broken = Files.write(dir.resolve("broken.idx"), "not an index".getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(broken, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        Files.move(broken, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index.reloadIfChanged();
+
+        assertTrue(index.isBreached("letmein"));
+    }
+
+    @Test
+    void emptyCorpusAndMissingFile() throws IOException {
+        Path indexFile = dir.resolve("empty.idx");
+        assertEquals(0, BreachedPasswordIndexBuilder.build(Files.write(dir.resolve("corpus.txt"), List.of()),
+                indexFile, false));
+        BreachedPasswordIndex empty = index(indexFile);
+        assertTrue(empty.isEnabled());
+        assertFalse(empty.isBreached("password"));
+
+        BreachedPasswordIndex missing = index(dir.resolve("missing.idx"));
+        assertFalse(missing.isEnabled());
+        assertFalse(missing.isBreached("password"));
+    }
+
+    private static BreachedPasswordIndex index(Path file) {
+        BreachedPasswordIndex index = new BreachedPasswordIndex();
+        ReflectionTestUtils.setField(index, "indexPath", file.toString());
+        index.init();
+        return index;
+    }
+
+    private static String sha1Hex(String password) throws NoSuchAlgorithmException {
+        StringBuilder hex = new StringBuilder(40);
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02X", b));
+        }
+        return hex.toString();
+    }
+}
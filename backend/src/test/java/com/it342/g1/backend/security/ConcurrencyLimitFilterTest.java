@@ -0,0 +1,101 @@
+package com.it342.g1.backend.security;
+
+import com.it342.g1.backend.util.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 2.0, 0.2, 1000, 10, registry);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, cors());
+
+    @Test
+    void refusesWithRetryAfterWhenTheLimitIsReached() throws Exception {
+        limiter.tryAcquire(); // a request already in flight
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/auth/login"), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+        assertEquals("{\"error\":\"Server is busy, please retry shortly\"}", response.getContentAsString());
+        assertNull(chain.getRequest(), "a refused request never reaches the controller");
+        assertEquals(1, registry.get("concurrency.requests").tag("outcome", "rejected").counter().count());
+    }
+
+    // The web app must be able to read the 503 and its Retry-After, so allowed origins get CORS headers
+    @Test
+    void refusalCarriesCorsHeadersForAllowedOrigins() throws Exception {
+        limiter.tryAcquire();
+
+        MockHttpServletResponse allowed = refuse("http://localhost:3000");
+        assertEquals(503, allowed.getStatus());
+        assertEquals("http://localhost:3000", allowed.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN));
+        assertEquals("true", allowed.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS));
+        assertEquals(HttpHeaders.RETRY_AFTER, allowed.getHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS));
+
+        MockHttpServletResponse foreign = refuse("http://evil.example");
+        assertEquals(503, foreign.getStatus());
+        assertNull(foreign.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN));
+    }
+
+    @Test
+    void passesRequestsWithinTheLimitAndFreesTheSlot() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/user/profile"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1, registry.get("concurrency.requests").tag("outcome", "accepted").counter().count());
+    }
+
+    // CORS preflights bypass the limit
+    @Test
+    void letsPreflightsThroughWhenFull() throws Exception {
+        limiter.tryAcquire();
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("OPTIONS", "/api/auth/login"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    private MockHttpServletResponse refuse(String origin) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.addHeader(HttpHeaders.ORIGIN, origin);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static UrlBasedCorsConfigurationSource cors() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(List.of("http://localhost:3000"));
+        configuration.setAllowCredentials(true);
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+}
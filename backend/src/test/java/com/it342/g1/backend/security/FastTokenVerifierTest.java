@@ -0,0 +1,199 @@
+package com.it342.g1.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Fuzzes the fast path against jjwt: whenever it gives a verdict, jjwt must agree
+class FastTokenVerifierTest {
+
+    private static final String[] SECRETS = {
+            "0123456789abcdef0123456789abcdef",                                   // 256 bits: HS256
+            "yourSecretKeyHereMustBe256BitsOrLongerForHS256Algorithm",            // 440 bits: HS384 (the default)
+            "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef"    // 512 bits: HS512
+    };
+    private static final String NAME_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_";
+    private static final String TOKEN_CHARS = NAME_CHARS + "-._=+/ \"\\é";
+
+    private final Random random = new Random(20261019L);
+
+    @Test
+    void agreesWithJjwtOnOwnAndMutatedTokens() throws Exception {
+        for (String secret : SECRETS) {
+            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            SecretKey otherKey = Keys.hmacShaKeyFor((secret + "x").getBytes(StandardCharsets.UTF_8));
+            FastTokenVerifier verifier = new FastTokenVerifier(key, new TokenGenerations());
+
+            for (int i = 0; i < 500; i++) {
+                String token = issue(key, randomName(), randomUserId(), 60_000 + random.nextInt(86_400_000));
+                // Our own unexpired tokens must never need the fallback
+                assertNotEquals(FastTokenVerifier.FALLBACK, verifier.userId(token), token);
+                assertAgrees(verifier, key, token);
+                for (String mutant : mutants(token, key, otherKey)) {
+                    assertAgrees(verifier, key, mutant);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRETS[1].getBytes(StandardCharsets.UTF_8));
+        FastTokenVerifier verifier = new FastTokenVerifier(key, new TokenGenerations());
+        String token = issue(key, "expired_user", 42L, -5_000);
+        assertEquals(FastTokenVerifier.INVALID, verifier.userId(token));
+        assertNull(verifier.subject(token));
+        assertAgrees(verifier, key, token);
+    }
+
+    @Test
+    void rejectsTokensFromRevokedGenerations() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRETS[1].getBytes(StandardCharsets.UTF_8));
+        TokenGenerations generations = new TokenGenerations();
+        FastTokenVerifier verifier = new FastTokenVerifier(key, generations);
+        String legacy = issue(key, "revoked_user", 42L, 60_000, null);
+        String before = issue(key, "revoked_user", 42L, 60_000, 0L);
+        String other = issue(key, "other_user", 43L, 60_000, 0L);
+        assertEquals(42L, verifier.userId(legacy));
+        assertEquals(42L, verifier.userId(before));
+
+        generations.merge(Map.of(42L, 1L));
+        String after = issue(key, "revoked_user", 42L, 60_000, 1L);
+        assertEquals(FastTokenVerifier.INVALID, verifier.userId(legacy));
+        assertEquals(FastTokenVerifier.INVALID, verifier.userId(before));
+        assertNull(verifier.subject(before));
+        assertEquals(42L, verifier.userId(after));
+        assertEquals(43L, verifier.userId(other));
+    }
+
+    private void assertAgrees(FastTokenVerifier verifier, SecretKey key, String token) {
+        long fast = verifier.userId(token);
+        Claims claims = jjwt(key, token);
+        if (fast == FastTokenVerifier.FALLBACK) {
+            assertNull(verifier.subject(token), token);
+            return;
+        }
+        if (fast == FastTokenVerifier.INVALID) {
+            assertNull(claims, "fast path rejected a token jjwt accepts: " + token);
+            return;
+        }
+        assertNotNull(claims, "fast path accepted a token jjwt rejects: " + token);
+        assertEquals(claims.get("userId", Long.class), fast, token);
+        assertEquals(claims.getSubject(), verifier.subject(token), token);
+    }
+
+    private List<String> mutants(String token, SecretKey key, SecretKey otherKey) throws Exception {
+        List<String> mutants = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            StringBuilder replaced = new StringBuilder(token);
+            replaced.setCharAt(random.nextInt(token.length()), randomChar());
+            mutants.add(replaced.toString());
+
+            StringBuilder inserted = new StringBuilder(token);
+            inserted.insert(random.nextInt(token.length() + 1), randomChar());
+            mutants.add(inserted.toString());
+
+            StringBuilder deleted = new StringBuilder(token);
+            deleted.deleteCharAt(random.nextInt(token.length()));
+            mutants.add(deleted.toString());
+        }
+        String[] parts = token.split("\\.");
+        mutants.add(token + ".");
+        mutants.add(token.substring(0, token.lastIndexOf('.') + 1));
+        mutants.add(parts[0] + "." + parts[1]);
+        mutants.add(parts[1] + "." + parts[0] + "." + parts[2]);
+
+        // Non-canonical final signature character: same decoded bytes for lenient decoders
+        char last = parts[2].charAt(parts[2].length() - 1);
+        mutants.add(token.substring(0, token.length() - 1) + (char) (last == 'A' ? 'B' : last - 1 > '0' ? last - 1 : 'A'));
+
+        // Wrong key, alternative layouts and claims jjwt understands but the fast path does not expect
+        mutants.add(issue(otherKey, randomName(), randomUserId(), 60_000));
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        String alg = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.US_ASCII);
+        mutants.add(sign(key, alg, "{\"userId\":7,\"sub\":\"reordered\",\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"spaced\", \"userId\":7,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"esc\\\"aped\",\"userId\":7,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"extra\",\"userId\":7,\"iat\":1,\"exp\":" + exp + ",\"role\":\"x\"}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"zero\",\"userId\":007,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"big\",\"userId\":99999999999999999999,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"neg\",\"userId\":-3,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"gen\",\"userId\":7,\"iat\":1,\"gen\":0,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"gen\",\"userId\":7,\"gen\":-1,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"gen\",\"userId\":7,\"gen\":01,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"noexp\",\"userId\":7,\"iat\":1}"));
+        mutants.add(sign(key, alg, "{\"sub\":\"old\",\"userId\":7,\"iat\":1,\"exp\":1}"));
+        mutants.add(sign(key, "{\"alg\":\"HS256\",\"typ\":\"JWT\"}", "{\"sub\":\"typ\",\"userId\":7,\"iat\":1,\"exp\":" + exp + "}"));
+        mutants.add(sign(key, "{\"alg\":\"none\"}", "{\"sub\":\"none\",\"userId\":7,\"iat\":1,\"exp\":" + exp + "}"));
+        return mutants;
+    }
+
+    // Current tokens carry a generation; the occasional legacy one without it must verify too
+    private String issue(SecretKey key, String username, long userId, long lifetimeMs) {
+        return issue(key, username, userId, lifetimeMs, random.nextInt(8) == 0 ? null : (long) random.nextInt(3));
+    }
+
+    private static String issue(SecretKey key, String username, long userId, long lifetimeMs, Long generation) {
+        Date now = new Date();
+        JwtBuilder builder = Jwts.builder()
+                .subject(username)
+                .claim("userId", userId);
+        if (generation != null) {
+            builder.claim("gen", generation);
+        }
+        return builder
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + lifetimeMs))
+                .signWith(key)
+                .compact();
+    }
+
+    private static String sign(SecretKey key, String header, String payload) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance(key.getAlgorithm());
+        mac.init(key);
+        return signingInput + "." + encoder.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static Claims jjwt(SecretKey key, String token) {
+        try {
+            return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String randomName() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 3 + random.nextInt(18); i > 0; i--) {
+            name.append(NAME_CHARS.charAt(random.nextInt(NAME_CHARS.length())));
+        }
+        return name.toString();
+    }
+
+    // Small ids as well as shard-tagged ones (shard index in the bits above 40)
+    private long randomUserId() {
+        return random.nextBoolean() ? 1 + random.nextInt(100_000) : ((long) random.nextInt(8) << 40) + random.nextInt(1 << 20);
+    }
+
+    private char randomChar() {
+        return TOKEN_CHARS.charAt(random.nextInt(TOKEN_CHARS.length()));
+    }
+}
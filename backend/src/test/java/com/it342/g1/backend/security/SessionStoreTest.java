@@ -0,0 +1,70 @@
+package com.it342.g1.backend.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SessionStoreTest {
+
+    private static SessionStore store(long idleTimeoutMs, long maxLifetimeMs) {
+        SessionStore store = new SessionStore(4);
+        ReflectionTestUtils.setField(store, "idleTimeoutMs", idleTimeoutMs);
+        store.setMaxLifetimeMs(maxLifetimeMs);
+        return store;
+    }
+
+    // Each lookup pushes the idle expiry out; an untouched session lapses after the idle timeout
+    @Test
+    void expirySlidesOnEachLookup() throws Exception {
+        SessionStore store = store(400, 60_000);
+        String token = store.create("slider", 1L, 0);
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(200);
+            assertNotNull(store.touch(token), "lookup " + i);
+        }
+        Thread.sleep(600);
+        assertNull(store.touch(token));
+    }
+
+    // Sliding never extends a session past the access-token lifetime (jwt.expiration)
+    @Test
+    void lifetimeIsCappedAtTheTokenExpiration() throws Exception {
+        SessionStore store = store(400, 900);
+        String token = store.create("capped", 2L, 0);
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (store.touch(token) != null) {
+            Thread.sleep(100);
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("session outlived its absolute lifetime");
+            }
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void sweepDropsOnlyExpiredSessions() throws Exception {
+        SessionStore store = store(200, 60_000);
+        String stale = store.create("stale", 3L, 0);
+        Thread.sleep(400);
+        String live = store.create("live", 4L, 0);
+        assertEquals(2, store.size());
+
+        store.sweep();
+
+        assertEquals(1, store.size());
+        assertNull(store.touch(stale));
+        assertEquals("live", store.touch(live).getUsername());
+    }
+
+    @Test
+    void revokedSessionIsGone() {
+        SessionStore store = store(60_000, 120_000);
+        String token = store.create("revoked", 5L, 0);
+        assertEquals(5L, store.touch(token).getUserId());
+        store.revoke(token);
+        assertNull(store.touch(token));
+    }
+}
@@ -0,0 +1,68 @@
+package com.it342.g1.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Cost per verification of one of our own tokens through jjwt's parser and through
+ * FastTokenVerifier, in time and bytes allocated. Not a unit test; run it directly:
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.it342.g1.backend.security.TokenVerificationBenchmark
+ */
+public class TokenVerificationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 500_000;
+
+    // Keeps the JIT from discarding the measured work
+    private static volatile long blackhole;
+
+    public static void main(String[] args) {
+        // The default jwt.secret, which selects HS384
+        SecretKey key = Keys.hmacShaKeyFor("yourSecretKeyHereMustBe256BitsOrLongerForHS256Algorithm"
+                .getBytes(StandardCharsets.UTF_8));
+        Date now = new Date();
+        String token = Jwts.builder()
+                .subject("juan_delacruz")
+                .claim("userId", 421L)
+                .claim("gen", 0L)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 86_400_000L))
+                .signWith(key)
+                .compact();
+        FastTokenVerifier fast = new FastTokenVerifier(key, new TokenGenerations());
+
+        System.out.printf("%-10s %10s %12s%n", "verifier", "ns/op", "bytes/op");
+        measure("jjwt", () -> {
+            Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+            return claims.get("userId", Long.class);
+        });
+        measure("fast", () -> fast.userId(token));
+    }
+
+    private static void measure(String name, java.util.function.LongSupplier verification) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += verification.getAsLong();
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += verification.getAsLong();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        blackhole += sink;
+        System.out.printf("%-10s %10.1f %12.1f%n", name,
+                (double) elapsed / MEASURED_ITERATIONS, (double) allocated / MEASURED_ITERATIONS);
+    }
+}
@@ -0,0 +1,131 @@
+package com.it342.g1.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.it342.g1.backend.exception.AccountDisabledException;
+import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.util.Identifiers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BulkAccountServiceTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    // MockMvc leaves the servlet path empty, so the API key filter is bypassed; grant the role directly
+    private static final RequestPostProcessor INTERNAL = user("internal-service").roles("INTERNAL");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void unlocksOnlyAccountsLockedInsideTheWindow() throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        LocalDateTime attackEnd = LocalDateTime.now().plusMinutes(10);
+        for (int i = 0; i < 5; i++) {
+            authService.registerUser("Bulk_Locked_" + i, "bulk.locked." + i + "@example.com", PASSWORD);
+            lock("Bulk_Locked_" + i, attackEnd.minusMinutes(i));
+        }
+        authService.registerUser("Bulk_Earlier", "bulk.earlier@example.com", PASSWORD);
+        lock("Bulk_Earlier", attackEnd.minusHours(3));
+
+        Map<String, Object> job = runJob("unlock", Map.of(
+                "lockedUntilAfter", attackEnd.minusHours(1).toString(),
+                "lockedUntilBefore", attackEnd.plusMinutes(1).toString()));
+
+        assertEquals("COMPLETED", job.get("state"));
+        assertEquals(5, ((Number) job.get("updated")).intValue());
+        assertNotNull(authService.loginUser("Bulk_Locked_3", PASSWORD).getToken());
+        assertEquals(5, jdbc.queryForObject("SELECT failed_login_attempts FROM users WHERE username = ?",
+                Integer.class, "Bulk_Earlier"));
+    }
+
+    @Test
+    void deactivateAndForceResetBlockLoginAndRevokeTokens() throws Exception {
+        authService.registerUser("Bulk_Gone", "bulk.gone@example.com", PASSWORD);
+        authService.registerUser("Bulk_Reset", "bulk.reset@example.com", PASSWORD);
+        String goneToken = authService.loginUser("Bulk_Gone", PASSWORD).getToken();
+        String resetToken = authService.loginUser("Bulk_Reset", PASSWORD).getToken();
+
+        runJob("deactivate", Map.of("userIds", List.of(userId("Bulk_Gone"))));
+        runJob("force-reset", Map.of("userIds", List.of(userId("Bulk_Reset"), Long.MAX_VALUE)));
+
+        assertSame(AccountDisabledException.DEACTIVATED,
+                assertThrows(AccountDisabledException.class, () -> authService.loginUser("Bulk_Gone", PASSWORD)));
+        assertSame(AccountDisabledException.PASSWORD_RESET_REQUIRED,
+                assertThrows(AccountDisabledException.class, () -> authService.loginUser("Bulk_Reset", PASSWORD)));
+        assertFalse(tokenProvider.validateToken(goneToken));
+        assertFalse(tokenProvider.validateToken(resetToken));
+    }
+
+    @Test
+    void rejectsAnEmptyFilter() throws Exception {
+        mvc.perform(post("/api/internal/accounts/bulk/unlock")
+                        .with(INTERNAL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> runJob(String operation, Map<String, Object> filter) throws Exception {
+        String accepted = mvc.perform(post("/api/internal/accounts/bulk/" + operation)
+                        .with(INTERNAL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(filter)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = (String) objectMapper.readValue(accepted, Map.class).get("jobId");
+        for (int i = 0; i < 200; i++) {
+            String body = mvc.perform(get("/api/internal/accounts/bulk/" + jobId)
+                            .with(INTERNAL))
+                    .andReturn().getResponse().getContentAsString();
+            Map<String, Object> job = objectMapper.readValue(body, Map.class);
+            if (job.get("finishedAt") != null) {
+                return job;
+            }
+            Thread.sleep(25);
+        }
+        return fail("Bulk job did not finish");
+    }
+
+    private void lock(String username, LocalDateTime until) {
+        new JdbcTemplate(dataSource).update("UPDATE users SET failed_login_attempts = 5, account_locked_until = ? "
+                + "WHERE username_normalized = ?", until, Identifiers.normalize(username));
+    }
+
+    private Long userId(String username) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT user_id FROM users WHERE username_normalized = ?",
+                Long.class, Identifiers.normalize(username));
+    }
+}
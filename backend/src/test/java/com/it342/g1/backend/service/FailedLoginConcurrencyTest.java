@@ -0,0 +1,94 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.exception.AccountLockedException;
+import com.it342.g1.backend.exception.AuthException;
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class FailedLoginConcurrencyTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+    private static final int GUESSES = 16;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    // A burst of wrong passwords that all pass the in-memory lock check counts exactly up to the threshold
+    @Test
+    void concurrentFailuresStopCountingAtTheLock() throws Exception {
+        authService.registerUser("Lock_Target", "lock.target@example.com", PASSWORD);
+        LocalDateTime before = LocalDateTime.now();
+
+        ExecutorService pool = Executors.newFixedThreadPool(GUESSES);
+        CountDownLatch go = new CountDownLatch(1);
+        Map<AuthException, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        List<Future<?>> guesses = new ArrayList<>();
+        try {
+            for (int i = 0; i < GUESSES; i++) {
+                guesses.add(pool.submit(() -> {
+                    go.await();
+                    AuthException e = assertThrows(AuthException.class,
+                            () -> authService.loginUser("lock_target", "Wr0ng!Pass"));
+                    outcomes.computeIfAbsent(e, key -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> guess : guesses) {
+                guess.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        LocalDateTime after = LocalDateTime.now();
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT failed_login_attempts, account_locked_until "
+                + "FROM users WHERE username = 'Lock_Target'");
+        assertEquals(5, ((Number) row.get("failed_login_attempts")).intValue());
+        LocalDateTime lockedUntil = ((Timestamp) row.get("account_locked_until")).toLocalDateTime();
+        assertFalse(lockedUntil.isBefore(before.plusMinutes(15).minusSeconds(1)), "locked until " + lockedUntil);
+        assertFalse(lockedUntil.isAfter(after.plusMinutes(15)), "locked until " + lockedUntil);
+
+        // Four plain failures, the one that reached the threshold, and the rest refused as locked
+        assertEquals(4, count(outcomes, InvalidCredentialsException.INVALID_CREDENTIALS));
+        assertEquals(1, count(outcomes, AccountLockedException.LOCKED_NOW));
+        assertEquals(GUESSES - 5, count(outcomes, AccountLockedException.LOCKED));
+        assertEquals(3, outcomes.size());
+
+        // The right password does not get past the lock either
+        AuthException locked = assertThrows(AuthException.class, () -> authService.loginUser("lock_target", PASSWORD));
+        assertSame(AccountLockedException.LOCKED, locked);
+        assertEquals(5, jdbc.queryForObject("SELECT failed_login_attempts FROM users WHERE username = 'Lock_Target'",
+                Integer.class));
+    }
+
+    private static int count(Map<AuthException, AtomicInteger> outcomes, AuthException outcome) {
+        AtomicInteger count = outcomes.get(outcome);
+        return count == null ? 0 : count.get();
+    }
+}
@@ -0,0 +1,193 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.exception.IdempotencyException;
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "profile:someone";
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void retryReplaysTheFirstResponse() {
+        IdempotencyService service = service(100);
+        ResponseEntity<?> first = service.execute(SCOPE, "k1", "a", counted(() -> ResponseEntity.ok(Map.of("n", 1))));
+        ResponseEntity<?> retry = service.execute(SCOPE, "k1", "a", counted(() -> ResponseEntity.ok(Map.of("n", 2))));
+
+        assertEquals(1, runs.get());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(Map.of("n", 1), retry.getBody());
+
+        // Keys are per scope, and requests without a key always run
+        service.execute("profile:other", "k1", "a", counted(() -> ResponseEntity.ok().build()));
+        service.execute(SCOPE, null, "a", counted(() -> ResponseEntity.ok().build()));
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() {
+        IdempotencyService service = service(100);
+        service.execute(SCOPE, "k1", "a", counted(() -> ResponseEntity.ok().build()));
+
+        IdempotencyException e = assertThrows(IdempotencyException.class,
+                () -> service.execute(SCOPE, "k1", "b", counted(() -> ResponseEntity.ok().build())));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatus());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void retryWaitsForTheRequestStillRunning() throws Exception {
+        IdempotencyService service = service(100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<ResponseEntity<?>> first = pool.submit(() -> service.execute(SCOPE, "k1", "a", blocking(started, finish)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Future<ResponseEntity<?>> retry = pool.submit(() -> service.execute(SCOPE, "k1", "a", blocking(started, finish)));
+        Thread.sleep(100);
+        assertFalse(retry.isDone(), "the retry waits instead of running the action again");
+
+        finish.countDown();
+        assertEquals(HttpStatus.CREATED, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        ResponseEntity<?> replayed = retry.get(5, TimeUnit.SECONDS);
+        assertEquals(HttpStatus.CREATED, replayed.getStatusCode());
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void retryGivesUpWithConflictWhenTheFirstRunsTooLong() throws Exception {
+        IdempotencyService service = service(100);
+        ReflectionTestUtils.setField(service, "inFlightWaitMs", 50L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        pool.submit(() -> service.execute(SCOPE, "k1", "a", blocking(started, finish)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        IdempotencyException e = assertThrows(IdempotencyException.class,
+                () -> service.execute(SCOPE, "k1", "a", counted(() -> ResponseEntity.ok().build())));
+        assertSame(IdempotencyException.IN_PROGRESS, e);
+        finish.countDown();
+    }
+
+    // Expected auth failures are part of the outcome; anything else is forgotten so a retry runs again
+    @Test
+    void expectedFailuresAreReplayedAndUnexpectedOnesForgotten() {
+        IdempotencyService service = service(100);
+        assertThrows(InvalidCredentialsException.class, () -> service.execute(SCOPE, "auth", "a",
+                counted(() -> { throw InvalidCredentialsException.INVALID_TOKEN; })));
+        assertThrows(InvalidCredentialsException.class, () -> service.execute(SCOPE, "auth", "a",
+                counted(() -> ResponseEntity.ok().build())));
+        assertEquals(1, runs.get());
+
+        assertThrows(IllegalStateException.class, () -> service.execute(SCOPE, "boom", "a",
+                counted(() -> { throw new IllegalStateException("database unavailable"); })));
+        ResponseEntity<?> retry = service.execute(SCOPE, "boom", "a", counted(() -> ResponseEntity.ok().build()));
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertNull(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void boundEvictsTheOldestCompletedKeysButNeverOneStillRunning() throws Exception {
+        IdempotencyService service = service(2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Future<ResponseEntity<?>> running = pool.submit(() -> service.execute(SCOPE, "slow", "a", blocking(started, finish)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 5; i++) {
+            service.execute(SCOPE, "k" + i, "a", counted(() -> ResponseEntity.ok().build()));
+        }
+        assertEquals(2, service.size(), "the running key plus the newest completed one");
+        service.execute(SCOPE, "k4", "a", counted(() -> ResponseEntity.ok().build()));
+        service.execute(SCOPE, "k0", "a", counted(() -> ResponseEntity.ok().build()));
+        assertEquals(7, runs.get(), "k4 was replayed, k0 had been evicted");
+
+        // The oldest entry is still running: a retry joins it instead of starting a second run
+        Future<ResponseEntity<?>> retry = pool.submit(() -> service.execute(SCOPE, "slow", "a", blocking(started, finish)));
+        finish.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals("true", retry.get(5, TimeUnit.SECONDS).getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(7, runs.get());
+
+        service.setMaxEntries(1);
+        assertEquals(1, service.size());
+    }
+
+    // Fingerprints are keyed: stable within the process, but not a plain digest anyone can recompute
+    @Test
+    void fingerprintIsAKeyedDigestOfTheParts() throws Exception {
+        String fingerprint = IdempotencyService.fingerprint("alice", "alice@example.com", "Str0ng!Pass");
+        assertEquals(fingerprint, IdempotencyService.fingerprint("alice", "alice@example.com", "Str0ng!Pass"));
+        assertNotEquals(fingerprint, IdempotencyService.fingerprint("alice", "alice@example.com", "Other!Pass1"));
+        assertNotEquals(IdempotencyService.fingerprint("ab", "c"), IdempotencyService.fingerprint("a", "bc"));
+
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        for (String part : new String[] { "alice", "alice@example.com", "Str0ng!Pass" }) {
+            sha256.update(part.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+        }
+        assertNotEquals(Base64.getEncoder().encodeToString(sha256.digest()), fingerprint);
+    }
+
+    private IdempotencyService service(int maxEntries) {
+        IdempotencyService service = new IdempotencyService(maxEntries);
+        ReflectionTestUtils.setField(service, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(service, "inFlightWaitMs", 5_000L);
+        return service;
+    }
+
+    private Supplier<ResponseEntity<?>> counted(Supplier<ResponseEntity<?>> action) {
+        return () -> {
+            runs.incrementAndGet();
+            return action.get();
+        };
+    }
+
+    // An action that signals it has started and then holds until released
+    private Supplier<ResponseEntity<?>> blocking(CountDownLatch started, CountDownLatch finish) {
+        return counted(() -> {
+            started.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        });
+    }
+}
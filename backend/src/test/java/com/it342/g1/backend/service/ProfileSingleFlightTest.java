@@ -0,0 +1,117 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.dto.UserProfile;
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.migration.NormalizedIdentifierBackfill;
+import com.it342.g1.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// UserService.getProfile collapses concurrent identical reads without caching what they return
+class ProfileSingleFlightTest {
+
+    private static final int READERS = 8;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final UserService userService = new UserService();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    ProfileSingleFlightTest() {
+        NormalizedIdentifierBackfill backfill = mock(NormalizedIdentifierBackfill.class);
+        when(backfill.isComplete()).thenReturn(true);
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "normalizedIdentifierBackfill", backfill);
+        ReflectionTestUtils.setField(userService, "meterRegistry", registry);
+        ReflectionTestUtils.setField(userService, "profileMaxWaitMs", 5_000L);
+        userService.init();
+    }
+
+    @Test
+    void concurrentReadsShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findByUsernameNormalized("flight_user")).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return Optional.of(user());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(READERS);
+        try {
+            List<Future<Optional<UserProfile>>> reads = new ArrayList<>();
+            reads.add(pool.submit(() -> userService.getProfile("Flight_User")));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < READERS; i++) {
+                reads.add(pool.submit(() -> userService.getProfile("FLIGHT_user")));
+            }
+            // Release the load only once every other reader is waiting on it
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (followers() < READERS - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            UserProfile first = reads.get(0).get(5, TimeUnit.SECONDS).orElseThrow();
+            for (Future<Optional<UserProfile>> read : reads) {
+                assertSame(first, read.get(5, TimeUnit.SECONDS).orElseThrow());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(READERS - 1, followers());
+    }
+
+    @Test
+    void failureIsNotCachedForLaterCallers() {
+        when(userRepository.findByUsernameNormalized("flight_user"))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(Optional.of(user()));
+
+        assertThrows(IllegalStateException.class, () -> userService.getProfile("flight_user"));
+        assertEquals("Flight_User", userService.getProfile("flight_user").orElseThrow().getUsername());
+    }
+
+    @Test
+    void emptyResultIsNotCachedForLaterCallers() {
+        when(userRepository.findByUsernameNormalized("flight_user"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(user()));
+
+        assertTrue(userService.getProfile("flight_user").isEmpty());
+        assertTrue(userService.getProfile("flight_user").isPresent());
+    }
+
+    private double followers() {
+        return registry.counter("singleflight.calls", "name", "user.profile", "role", "follower").count();
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setUserId(42L);
+        user.setUsername("Flight_User");
+        user.setEmail("flight@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,89 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import com.it342.g1.backend.security.TokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Grace 0: any second exchange of a token counts as reuse
+@SpringBootTest(properties = "auth.refresh.reuse-grace-ms=0")
+class RefreshTokenServiceTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @Autowired
+    private UserArchiveService userArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void rotatesAndRevokesTheFamilyOnReuse() {
+        authService.registerUser("Refresh_User", "refresh.user@example.com", PASSWORD);
+        AuthService.AuthResponse login = authService.loginUser("Refresh_User", PASSWORD);
+
+        AuthService.AuthResponse first = authService.refresh(login.getRefreshToken());
+        assertEquals("Refresh_User", first.getUsername());
+        assertTrue(tokenProvider.validateToken(first.getToken()));
+        assertNotEquals(login.getRefreshToken(), first.getRefreshToken());
+        AuthService.AuthResponse second = authService.refresh(first.getRefreshToken());
+
+        // Replaying an exchanged token kills every token of the login, including the newest one
+        assertSame(InvalidCredentialsException.REFRESH_TOKEN_REUSED, assertThrows(InvalidCredentialsException.class,
+                () -> authService.refresh(login.getRefreshToken())));
+        assertSame(InvalidCredentialsException.INVALID_REFRESH_TOKEN, assertThrows(InvalidCredentialsException.class,
+                () -> authService.refresh(second.getRefreshToken())));
+        assertSame(InvalidCredentialsException.INVALID_REFRESH_TOKEN, assertThrows(InvalidCredentialsException.class,
+                () -> authService.refresh("not-a-refresh-token")));
+    }
+
+    @Test
+    void logoutAndLogoutAllRevokeRefreshTokens() {
+        authService.registerUser("Refresh_Out", "refresh.out@example.com", PASSWORD);
+        AuthService.AuthResponse kept = authService.loginUser("Refresh_Out", PASSWORD);
+        AuthService.AuthResponse loggedOut = authService.loginUser("Refresh_Out", PASSWORD);
+
+        authService.logoutUser(loggedOut.getToken(), loggedOut.getRefreshToken());
+        assertThrows(InvalidCredentialsException.class, () -> authService.refresh(loggedOut.getRefreshToken()));
+        AuthService.AuthResponse renewed = authService.refresh(kept.getRefreshToken());
+
+        authService.logoutAllSessions(renewed.getToken());
+        assertThrows(InvalidCredentialsException.class, () -> authService.refresh(renewed.getRefreshToken()));
+    }
+
+    // A user who only ever refreshes is still active: last_login moves (throttled) and the account is not archived
+    @Test
+    void refreshKeepsTheAccountOutOfTheArchive() {
+        authService.registerUser("Refresh_Only", "refresh.only@example.com", PASSWORD);
+        AuthService.AuthResponse login = authService.loginUser("Refresh_Only", PASSWORD);
+        jdbc.update("UPDATE users SET created_at = TIMESTAMP '2000-01-01 00:00:00', "
+                + "last_login = TIMESTAMP '2000-01-01 00:00:00' WHERE username = 'Refresh_Only'");
+
+        AuthService.AuthResponse renewed = authService.refresh(login.getRefreshToken());
+        Timestamp touched = lastLogin();
+        assertTrue(touched.toLocalDateTime().getYear() > 2000, touched::toString);
+
+        // Within the interval a refresh does not write again
+        authService.refresh(renewed.getRefreshToken());
+        assertEquals(touched, lastLogin());
+
+        userArchiveService.archiveDormantUsers();
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE username = 'Refresh_Only'", Integer.class));
+    }
+
+    private Timestamp lastLogin() {
+        return jdbc.queryForObject("SELECT last_login FROM users WHERE username = 'Refresh_Only'", Timestamp.class);
+    }
+}
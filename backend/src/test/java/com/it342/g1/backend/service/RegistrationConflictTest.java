@@ -0,0 +1,75 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.exception.AccountConflictException;
+import com.it342.g1.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two registrations can both pass the exists* checks; the unique index then rejects the second insert
+@SpringBootTest
+@AutoConfigureMockMvc
+class RegistrationConflictTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Test
+    void usernameTakenAfterTheCheckIsAConflict() {
+        authService.registerUser("Race_Winner", "race.winner@example.com", PASSWORD);
+        // The loser's pre-check ran before the winner's insert committed; later checks see the row
+        doReturn(false).doAnswer(invocation -> jdbc.queryForObject(
+                        "select count(*) from users where username_normalized = ?", Integer.class,
+                        invocation.getArgument(0, String.class)) > 0)
+                .when(userRepository).existsByUsernameNormalized(eq("race_winner"));
+        try {
+            AccountConflictException e = assertThrows(AccountConflictException.class,
+                    () -> authService.registerUser("RACE_winner", "race.loser@example.com", PASSWORD));
+            assertSame(AccountConflictException.USERNAME_TAKEN, e);
+        } finally {
+            reset(userRepository);
+        }
+    }
+
+    @Test
+    void emailTakenAfterTheCheckIsA409() throws Exception {
+        authService.registerUser("Race_Mail", "race.mail@example.com", PASSWORD);
+        doReturn(false).when(userRepository).existsByEmailNormalized(anyString());
+        try {
+            mvc.perform(post("/api/auth/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"username\":\"Race_Mail2\",\"email\":\"Race.Mail@example.com\",\"password\":\""
+                                    + PASSWORD + "\"}"))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.error").value("Email already exists"));
+        } finally {
+            reset(userRepository);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.exception.AccountConflictException;
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class UserArchiveServiceTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserArchiveService userArchiveService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void dormantAccountIsRestoredOnlyByTheRightPassword() {
+        authService.registerUser("Dormant_User", "dormant@example.com", PASSWORD);
+        jdbc.update("UPDATE users SET created_at = TIMESTAMP '2000-01-01 00:00:00', last_login = NULL "
+                + "WHERE username = 'Dormant_User'");
+        userArchiveService.archiveDormantUsers();
+        assertEquals(1, rows("users_archive"));
+        assertEquals(0, rows("users"));
+
+        assertThrows(InvalidCredentialsException.class, () -> authService.loginUser("dormant_user", "Wr0ng!Pass"));
+        assertThrows(InvalidCredentialsException.class, () -> authService.loginUser("dormant@example.com", "Wr0ng!Pass"));
+        assertEquals(1, rows("users_archive"));
+        assertEquals(0, rows("users"));
+
+        assertNotNull(authService.loginUser("dormant@example.com", PASSWORD).getToken());
+        assertEquals(0, rows("users_archive"));
+        assertEquals(1, rows("users"));
+        assertNotNull(authService.loginUser("Dormant_User", PASSWORD).getToken());
+    }
+
+    // Archived emails stay reserved on the profile paths, as they are on registration
+    @Test
+    void profileCannotTakeAnArchivedEmail() {
+        authService.registerUser("Dormant_Mail", "dormant.mail@example.com", PASSWORD);
+        archive("Dormant_Mail");
+        authService.registerUser("Mail_Taker", "mail.taker@example.com", PASSWORD);
+        User taker = userService.findByUsername("Mail_Taker").orElseThrow();
+
+        assertSame(AccountConflictException.EMAIL_TAKEN, assertThrows(AccountConflictException.class,
+                () -> userService.patchProfile(taker.getUserId(), Map.of("email", "Dormant.Mail@example.com"), null)));
+        taker.setEmail("dormant.mail@example.com");
+        assertSame(AccountConflictException.EMAIL_TAKEN, assertThrows(AccountConflictException.class,
+                () -> userService.saveProfile(taker)));
+
+        assertNotNull(authService.loginUser("dormant_mail", PASSWORD).getToken());
+    }
+
+    // If the email was taken anyway (e.g. written before this check existed), the restore fails loudly
+    // and the account stays archived instead of reading as invalid credentials
+    @Test
+    void restoreBlockedByATakenEmailIsAConflict() {
+        authService.registerUser("Dormant_Clash", "dormant.clash@example.com", PASSWORD);
+        archive("Dormant_Clash");
+        authService.registerUser("Clash_Taker", "clash.taker@example.com", PASSWORD);
+        jdbc.update("UPDATE users SET email = 'dormant.clash@example.com', email_normalized = 'dormant.clash@example.com' "
+                + "WHERE username = 'Clash_Taker'");
+
+        assertSame(AccountConflictException.EMAIL_TAKEN, assertThrows(AccountConflictException.class,
+                () -> authService.loginUser("dormant_clash", PASSWORD)));
+        assertEquals(1, rows("users_archive", "Dormant_Clash"));
+        assertEquals(0, rows("users", "Dormant_Clash"));
+    }
+
+    private void archive(String username) {
+        jdbc.update("UPDATE users SET created_at = TIMESTAMP '2000-01-01 00:00:00', last_login = NULL "
+                + "WHERE username = ?", username);
+        userArchiveService.archiveDormantUsers();
+        assertEquals(1, rows("users_archive", username));
+    }
+
+    private int rows(String table) {
+        return rows(table, "Dormant_User");
+    }
+
+    private int rows(String table, String username) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE username = ?", Integer.class, username);
+    }
+}
@@ -0,0 +1,89 @@
+package com.it342.g1.backend.service;
+
+import com.it342.g1.backend.dto.UserSummary;
+import com.it342.g1.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserBatchLoaderTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserArchiveService userArchiveService = mock(UserArchiveService.class);
+    private final UserBatchLoader loader = new UserBatchLoader();
+
+    // Every id set the hot table was queried for, in call order
+    private final List<Set<Long>> queries = Collections.synchronizedList(new ArrayList<>());
+
+    UserBatchLoaderTest() {
+        ReflectionTestUtils.setField(loader, "userRepository", userRepository);
+        ReflectionTestUtils.setField(loader, "userArchiveService", userArchiveService);
+        ReflectionTestUtils.setField(loader, "coalesceWaitMs", 5_000L);
+        when(userArchiveService.findSummaries(anyCollection())).thenReturn(Map.of());
+    }
+
+    // A batch that overlaps one already in flight waits for the shared ids and queries only the rest
+    @Test
+    void overlappingBatchesShareOneQueryPerId() throws Exception {
+        CountDownLatch firstQueryStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstQuery = new CountDownLatch(1);
+        when(userRepository.findSummariesByUserIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            queries.add(Set.copyOf(ids));
+            if (ids.contains(1L)) {
+                firstQueryStarted.countDown();
+                assertTrue(releaseFirstQuery.await(5, TimeUnit.SECONDS));
+            }
+            return ids.stream().map(UserBatchLoaderTest::summary).collect(Collectors.toList());
+        });
+
+        CompletableFuture<Map<Long, UserSummary>> first = CompletableFuture.supplyAsync(() -> loader.load(List.of(1L, 2L)));
+        assertTrue(firstQueryStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Map<Long, UserSummary>> second = CompletableFuture.supplyAsync(() -> loader.load(List.of(2L, 3L)));
+
+        // The second batch fetches its own id, then waits on the first batch for id 2
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (queries.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        releaseFirstQuery.countDown();
+
+        assertEquals(Set.of(1L, 2L), first.get(5, TimeUnit.SECONDS).keySet());
+        assertEquals(Set.of(2L, 3L), second.get(5, TimeUnit.SECONDS).keySet());
+        assertEquals(List.of(Set.of(1L, 2L), Set.of(3L)), queries);
+        // Both callers got the very same instance for the shared id
+        assertTrue(first.get().get(2L) == second.get().get(2L));
+    }
+
+    // Ids missing from the hot table are looked up in users_archive
+    @Test
+    void archivedUsersAreReturned() {
+        when(userRepository.findSummariesByUserIdIn(anyCollection())).thenReturn(List.of(summary(7L)));
+        when(userArchiveService.findSummaries(List.of(8L, 9L))).thenReturn(Map.of(8L, summary(8L)));
+
+        Map<Long, UserSummary> found = loader.load(List.of(7L, 8L, 9L));
+
+        assertEquals(Set.of(7L, 8L), found.keySet());
+        assertEquals("user8", found.get(8L).getUsername());
+    }
+
+    private static UserSummary summary(Long userId) {
+        return new UserSummary(userId, "user" + userId, "user" + userId + "@example.com");
+    }
+}
@@ -0,0 +1,200 @@
+package com.it342.g1.backend.sharding;
+
+import com.it342.g1.backend.dto.UserSummary;
+import com.it342.g1.backend.entity.User;
+import com.it342.g1.backend.exception.InvalidCredentialsException;
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.service.AuthService;
+import com.it342.g1.backend.util.Identifiers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "sharding.enabled=true",
+        "sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "sharding.shards[0].username=sa",
+        "sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "sharding.shards[1].username=sa",
+        "sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "sharding.shards[2].username=sa",
+        "sharding.rebalance.pause-ms=0"
+})
+class ShardingTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void registeredUsersLandOnTheirHomeShardAndResolveByAnyKey() {
+        List<Long> userIds = new ArrayList<>();
+        Set<Integer> shardsUsed = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            String username = "Sharded_" + i;
+            authService.registerUser(username, username + "@Example.com", PASSWORD);
+
+            int home = shardRouter.homeShard(Identifiers.normalize(username));
+            shardsUsed.add(home);
+            assertEquals(1, countOn(home, username));
+
+            User byName = userRepository.findByUsernameNormalized(Identifiers.normalize(username)).orElseThrow();
+            assertEquals(home, shardRouter.originShard(byName.getUserId()));
+            assertTrue(userRepository.findByEmailNormalized(Identifiers.normalize(username + "@example.com")).isPresent());
+            assertTrue(userRepository.findVersionByUserId(byName.getUserId()).isPresent());
+            userIds.add(byName.getUserId());
+        }
+        assertTrue(shardsUsed.size() > 1, "users should spread over several shards");
+
+        List<UserSummary> summaries = userRepository.findSummariesByUserIdIn(userIds);
+        assertEquals(userIds.size(), summaries.size());
+
+        assertEquals("Invalid credentials", assertThrows(InvalidCredentialsException.class,
+                () -> authService.loginUser("nobody@example.com", PASSWORD)).getMessage());
+        assertNotNull(authService.loginUser("SHARDED_3@example.com", PASSWORD).getToken());
+    }
+
+    @Test
+    void duplicateUsernameIsRejectedAcrossShards() {
+        authService.registerUser("Unique_Name", "unique@example.com", PASSWORD);
+        assertThrows(RuntimeException.class,
+                () -> authService.registerUser("unique_name", "other@example.com", PASSWORD));
+    }
+
+    @Test
+    void rebalancerMovesMisplacedUsersHome() throws Exception {
+        String normalized = movableName("wanderer");
+        authService.registerUser(normalized, normalized + "@example.com", PASSWORD);
+        int home = shardRouter.homeShard(normalized);
+        int stray = home + 1;
+        User user = userRepository.findByUsernameNormalized(normalized).orElseThrow();
+        strand(user, home, stray);
+
+        // Archived users and pending outbox events travel too
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        shardRouter.onShard(stray, () -> jdbc.update("INSERT INTO outbox_events (event_type, aggregate_id, payload, "
+                + "status, attempts, created_at, next_attempt_at) VALUES ('user.test', ?, '{}', 'PENDING', 0, "
+                + "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", user.getUserId()));
+        String sleeperNormalized = movableName("sleeper");
+        authService.registerUser(sleeperNormalized, sleeperNormalized + "@example.com", PASSWORD);
+        int sleeperHome = shardRouter.homeShard(sleeperNormalized);
+        int sleeperStray = sleeperHome + 1;
+        User sleeper = userRepository.findByUsernameNormalized(sleeperNormalized).orElseThrow();
+        shardRouter.onShard(sleeperHome, () -> jdbc.update("DELETE FROM users WHERE user_id = ?", sleeper.getUserId()));
+        shardRouter.onShard(sleeperStray, () -> jdbc.update("INSERT INTO users_archive (user_id, username, "
+                + "username_normalized, email, email_normalized, password, token_generation, version, archived_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, 0, 0, CURRENT_TIMESTAMP)", sleeper.getUserId(), sleeper.getUsername(),
+                sleeperNormalized, sleeper.getEmail(), sleeper.getEmail(), sleeper.getPassword()));
+
+        rebalance();
+
+        assertEquals(1, countOn(home, normalized));
+        assertEquals(0, countOn(stray, normalized));
+        assertEquals(home, shardRouter.directoryShardForUserId(user.getUserId()).orElseThrow());
+        assertTrue(userRepository.findByEmailNormalized(normalized + "@example.com").isPresent());
+        assertEquals(1, count(home, "SELECT COUNT(*) FROM outbox_events WHERE event_type = 'user.test' AND aggregate_id = ?",
+                user.getUserId()));
+        assertEquals(0, count(stray, "SELECT COUNT(*) FROM outbox_events WHERE aggregate_id = ?", user.getUserId()));
+        assertEquals(1, count(sleeperHome, "SELECT COUNT(*) FROM users_archive WHERE user_id = ?", sleeper.getUserId()));
+        assertEquals(0, count(sleeperStray, "SELECT COUNT(*) FROM users_archive WHERE user_id = ?", sleeper.getUserId()));
+    }
+
+    // Every write acknowledged while users are being moved must be on the copy that survives
+    @Test
+    void writesDuringRebalanceAreNotLost() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String username = movableName("mover_" + i + "_");
+            authService.registerUser(username, username + "@example.com", PASSWORD);
+            User user = userRepository.findByUsernameNormalized(username).orElseThrow();
+            int home = shardRouter.homeShard(username);
+            strand(user, home, home + 1);
+            users.add(user);
+        }
+
+        long[] acknowledged = new long[users.size()];
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            while (!done.get()) {
+                for (int i = 0; i < users.size(); i++) {
+                    acknowledged[i] += userRepository.incrementTokenGeneration(users.get(i).getUserId());
+                }
+            }
+        });
+        writer.start();
+        rebalance();
+        done.set(true);
+        writer.join();
+
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            int home = shardRouter.homeShard(user.getUsername());
+            assertEquals(acknowledged[i], count(home, "SELECT token_generation FROM users WHERE user_id = ?",
+                    user.getUserId()), user.getUsername());
+        }
+    }
+
+    // A username homed below the last shard, so it can be stranded on the next one up
+    private String movableName(String prefix) {
+        for (int i = 0; ; i++) {
+            if (shardRouter.homeShard(prefix + i) < shardRouter.shardCount() - 1) {
+                return prefix + i;
+            }
+        }
+    }
+
+    // Simulate a user left behind on the wrong shard; on a higher shard its id stays below that shard's range
+    private void strand(User user, int home, int stray) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        shardRouter.onShard(home, () -> jdbc.update("DELETE FROM users WHERE user_id = ?", user.getUserId()));
+        shardRouter.onShard(stray, () -> jdbc.update(
+                "INSERT INTO users (user_id, username, username_normalized, email, email_normalized, password, "
+                        + "is_active, failed_login_attempts, version) VALUES (?, ?, ?, ?, ?, ?, TRUE, 0, 0)",
+                user.getUserId(), user.getUsername(), Identifiers.normalize(user.getUsername()), user.getEmail(),
+                Identifiers.normalize(user.getEmail()), user.getPassword()));
+        shardRouter.onShard(ShardRouter.DIRECTORY_SHARD, () -> jdbc.update(
+                "UPDATE user_shard_directory SET shard = ? WHERE user_id = ?", stray, user.getUserId()));
+    }
+
+    private void rebalance() throws InterruptedException {
+        assertTrue(shardRebalancer.start());
+        while (Boolean.TRUE.equals(shardRebalancer.status().get("running"))) {
+            Thread.sleep(20);
+        }
+        assertEquals(0L, shardRebalancer.status().get("failed"));
+    }
+
+    private long count(int shard, String sql, Object... args) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        return shardRouter.onShard(shard, () -> jdbc.queryForObject(sql, Long.class, args));
+    }
+
+    private int countOn(int shard, String username) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        return shardRouter.onShard(shard, () -> jdbc.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username = ?", Integer.class, username));
+    }
+}
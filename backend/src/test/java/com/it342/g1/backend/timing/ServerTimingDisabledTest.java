@@ -0,0 +1,38 @@
+package com.it342.g1.backend.timing;
+
+import com.it342.g1.backend.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Timing keeps running for the slow-request log, but nothing is sent to clients
+@SpringBootTest(properties = "timing.server-timing-header.enabled=false")
+@AutoConfigureMockMvc
+class ServerTimingDisabledTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void headerIsNotSent() throws Exception {
+        authService.registerUser("Timing_Off", "timing.off@example.com", "Str0ng!Pass");
+        String token = authService.loginUser("timing_off", "Str0ng!Pass").getToken();
+
+        mvc.perform(get("/api/user/profile")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.ORIGIN, "http://localhost:3000"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ServerTimingFilter.HEADER))
+                .andExpect(header().doesNotExist(ServerTimingFilter.TIMING_ALLOW_ORIGIN));
+    }
+}
@@ -0,0 +1,79 @@
+package com.it342.g1.backend.timing;
+
+import com.it342.g1.backend.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "timing.server-timing-header.enabled=true")
+@AutoConfigureMockMvc
+class ServerTimingEnabledTest {
+
+    private static final String PASSWORD = "Str0ng!Pass";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private AuthService authService;
+
+    // The browser app may read the phase timings cross-origin
+    @Test
+    void profileCarriesServerTimingReadableFromTheWebApp() throws Exception {
+        authService.registerUser("Timing_On", "timing.on@example.com", PASSWORD);
+        String token = authService.loginUser("timing_on", PASSWORD).getToken();
+
+        mvc.perform(get("/api/user/profile")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header(HttpHeaders.ORIGIN, "http://localhost:3000"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTimingFilter.HEADER, containsString("lookup;dur=")))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, containsString(ServerTimingFilter.HEADER)))
+                .andExpect(header().string(ServerTimingFilter.TIMING_ALLOW_ORIGIN, "http://localhost:3000"));
+    }
+
+    // A bcrypt phase only for real usernames would let anyone enumerate accounts
+    @Test
+    void loginHeadersDoNotRevealWhetherTheUsernameExists() throws Exception {
+        authService.registerUser("Timing_Known", "timing.known@example.com", PASSWORD);
+
+        Map<String, String> known = failedLoginHeaders("timing_known");
+        Map<String, String> unknown = failedLoginHeaders("timing_nobody");
+
+        assertTrue(known.get(ServerTimingFilter.HEADER).matches("total;dur=\\d+\\.\\d"), known.toString());
+        assertTrue(unknown.get(ServerTimingFilter.HEADER).matches("total;dur=\\d+\\.\\d"), unknown.toString());
+        known.remove(ServerTimingFilter.HEADER);
+        unknown.remove(ServerTimingFilter.HEADER);
+        assertEquals(known, unknown);
+    }
+
+    private Map<String, String> failedLoginHeaders(String username) throws Exception {
+        MockHttpServletResponse response = mvc.perform(post("/api/auth/login")
+                        .header(HttpHeaders.ORIGIN, "http://localhost:3000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"Wr0ng!Pass\"}"))
+                .andExpect(status().isUnauthorized())
+                .andReturn().getResponse();
+        Map<String, String> headers = new TreeMap<>();
+        for (String name : response.getHeaderNames()) {
+            headers.put(name, String.join(",", response.getHeaders(name)));
+        }
+        return headers;
+    }
+}
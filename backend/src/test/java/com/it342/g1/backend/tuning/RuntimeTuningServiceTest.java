@@ -0,0 +1,146 @@
+package com.it342.g1.backend.tuning;
+
+import com.it342.g1.backend.security.SessionStore;
+import com.it342.g1.backend.security.TokenProvider;
+import com.it342.g1.backend.security.TunableBCryptPasswordEncoder;
+import com.it342.g1.backend.service.IdempotencyService;
+import com.it342.g1.backend.sharding.ShardRoutingDataSource;
+import com.it342.g1.backend.timing.PoolWaitTimingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuntimeTuningServiceTest {
+
+    private final TunableBCryptPasswordEncoder passwordEncoder = new TunableBCryptPasswordEncoder(10);
+    private final TokenProvider tokenProvider = new TokenProvider();
+    private final IdempotencyService idempotencyService = new IdempotencyService(1000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariDataSource shard0 = pool("shard0", 10, 10);
+    private final HikariDataSource shard1 = pool("shard1", 10, 2);
+
+    private RuntimeTuningService service;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(tokenProvider, "sessionStore", new SessionStore(4));
+
+        // The application DataSource as wired with sharding and timing on: timing wrapper -> router -> pools
+        ShardRoutingDataSource router = new ShardRoutingDataSource();
+        router.setTargetDataSources(Map.of(0, shard0, 1, shard1));
+        router.afterPropertiesSet();
+
+        service = new RuntimeTuningService();
+        ReflectionTestUtils.setField(service, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(service, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(service, "idempotencyService", idempotencyService);
+        ReflectionTestUtils.setField(service, "dataSource", new PoolWaitTimingDataSource(router));
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "bcryptMin", 10);
+        ReflectionTestUtils.setField(service, "bcryptMax", 14);
+        ReflectionTestUtils.setField(service, "expirationMin", 300_000L);
+        ReflectionTestUtils.setField(service, "expirationMax", 604_800_000L);
+        ReflectionTestUtils.setField(service, "poolMin", 2);
+        ReflectionTestUtils.setField(service, "poolMax", 50);
+        ReflectionTestUtils.setField(service, "idempotencyMin", 100);
+        ReflectionTestUtils.setField(service, "idempotencyMax", 100_000);
+        ReflectionTestUtils.setField(service, "auditMaxEntries", 3);
+        service.init();
+    }
+
+    @AfterEach
+    void closePools() {
+        shard0.close();
+        shard1.close();
+    }
+
+    @Test
+    void oneValueOutOfRangeRejectsTheWholeRequest() {
+        Map<String, Long> changes = new LinkedHashMap<>();
+        changes.put(RuntimeTuningService.BCRYPT_STRENGTH, 12L);
+        changes.put(RuntimeTuningService.JWT_EXPIRATION_MS, 600_000L);
+        changes.put(RuntimeTuningService.POOL_MAX_SIZE, 500L);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.apply(changes, "ops", "incident"));
+        assertEquals("pool.max-size must be between 2 and 50", e.getMessage());
+
+        // The valid entries before the bad one were not applied either
+        assertEquals(10, passwordEncoder.getStrength());
+        assertEquals(3_600_000L, tokenProvider.getExpirationMs());
+        assertEquals(10, shard0.getMaximumPoolSize());
+        assertTrue(service.auditTrail().isEmpty());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.apply(Map.of("cache.size", 5L), "ops", "incident"));
+        assertThrows(IllegalArgumentException.class, () -> service.apply(Map.of(), "ops", "incident"));
+        assertTrue(service.auditTrail().isEmpty());
+    }
+
+    @Test
+    void validRequestIsAppliedToTheLiveComponents() {
+        Map<String, Long> changes = new LinkedHashMap<>();
+        changes.put(RuntimeTuningService.BCRYPT_STRENGTH, 12L);
+        changes.put(RuntimeTuningService.JWT_EXPIRATION_MS, 600_000L);
+        changes.put(RuntimeTuningService.IDEMPOTENCY_MAX_ENTRIES, 500L);
+
+        List<TuningChange> applied = service.apply(changes, "ops", "incident");
+
+        assertEquals(3, applied.size());
+        assertEquals(10, applied.get(0).getOldValue());
+        assertEquals(12, passwordEncoder.getStrength());
+        assertEquals(600_000L, tokenProvider.getExpirationMs());
+        assertEquals(500, idempotencyService.getMaxEntries());
+        assertEquals(12.0, meterRegistry.get("tuning.value").tag("setting", RuntimeTuningService.BCRYPT_STRENGTH)
+                .gauge().value());
+    }
+
+    // Every pool behind the timing wrapper and the shard router follows the new size
+    @Test
+    void poolSizeReachesEveryShardPool() {
+        service.apply(Map.of(RuntimeTuningService.POOL_MAX_SIZE, 4L), "ops", "incident");
+
+        assertEquals(4, shard0.getMaximumPoolSize());
+        assertEquals(4, shard1.getMaximumPoolSize());
+        assertEquals(4, shard0.getMinimumIdle(), "minimum idle is lowered so it never exceeds the maximum");
+        assertEquals(2, shard1.getMinimumIdle());
+        assertEquals(4L, ((Map<?, ?>) service.settings().get(RuntimeTuningService.POOL_MAX_SIZE)).get("value"));
+    }
+
+    @Test
+    void auditTrailKeepsOnlyTheMostRecentChanges() {
+        for (long strength = 10; strength <= 14; strength++) {
+            service.apply(Map.of(RuntimeTuningService.BCRYPT_STRENGTH, strength), "ops", "step " + strength);
+        }
+
+        List<TuningChange> trail = service.auditTrail();
+        assertEquals(3, trail.size());
+        assertEquals("step 12", trail.get(0).getReason());
+        assertEquals(11, trail.get(0).getOldValue());
+        assertEquals("step 14", trail.get(2).getReason());
+        assertEquals(14, trail.get(2).getNewValue());
+        assertEquals("ops", trail.get(2).getOperator());
+    }
+
+    // Never started: only the configuration is exercised
+    private static HikariDataSource pool(String name, int maxSize, int minIdle) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + name);
+        pool.setMaximumPoolSize(maxSize);
+        pool.setMinimumIdle(minIdle);
+        return pool;
+    }
+}
@@ -0,0 +1,138 @@
+package com.it342.g1.backend.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the limiter one window at a time: with a zero-length window and one required
+ * sample, the only sampled release of each window (the last) runs the adjustment while
+ * the window's peak concurrency is still recorded. Latencies are set by back-dating the
+ * start time in units of 20 ms, so a GC or JIT pause during a run cannot pass for queueing.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final double TOLERANCE = 2.0;
+    private static final long UNIT_MS = 20;
+
+    @Test
+    void growsWhileLatencyHoldsAndTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 2, 1000);
+        int previous = limiter.getLimit();
+        for (int i = 0; i < 10; i++) {
+            window(limiter, limiter.getLimit(), 2);
+            assertTrue(limiter.getLimit() > previous, "window " + i + " should grow the limit past " + previous);
+            previous = limiter.getLimit();
+        }
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = limiter(40, 2, 1000);
+        for (int i = 0; i < 10; i++) {
+            window(limiter, 5, 2);
+        }
+        assertEquals(40, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyInflatesPastTheTolerance() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 2, 1000);
+        window(limiter, 100, 2);
+        int settled = limiter.getLimit();
+
+        // Queueing: five times the baseline, well past the 2x tolerance
+        window(limiter, settled, 10);
+        int shrunk = limiter.getLimit();
+        assertTrue(shrunk < settled, shrunk + " should be below " + settled);
+        // The gradient is clamped at 0.5, so one window at most halves the limit (plus headroom)
+        assertTrue(shrunk >= settled / 2, shrunk + " should be at least half of " + settled);
+
+        // Within the tolerance the limit stops shrinking
+        window(limiter, shrunk, 3);
+        assertTrue(limiter.getLimit() >= shrunk);
+    }
+
+    @Test
+    void staysWithinTheConfiguredBounds() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 30);
+        for (int i = 0; i < 10; i++) {
+            window(limiter, limiter.getLimit(), 2);
+        }
+        assertEquals(30, limiter.getLimit());
+
+        window(limiter, limiter.getLimit(), 1);
+        for (int i = 0; i < 20; i++) {
+            window(limiter, limiter.getLimit(), 50);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void refusesBeyondTheLimitAndReleasesSlots() {
+        AdaptiveConcurrencyLimiter limiter = limiter(3, 1, 10);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(3, limiter.getInFlight());
+
+        limiter.release(System.nanoTime(), false);
+        assertEquals(2, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void baselineFollowsFasterSamplesAtOnceAndSlowerOnesOnlyWhenUnsaturated() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 2, 20);
+        window(limiter, 20, 2);
+        long baseline = limiter.getBaselineNanos();
+        assertNear(2, baseline);
+
+        // Saturated windows at 3 units: requests may have queued, so the baseline holds
+        for (int i = 0; i < 5; i++) {
+            window(limiter, limiter.getLimit(), 3);
+        }
+        assertEquals(baseline, limiter.getBaselineNanos());
+
+        // Unsaturated windows at 3 units: the service itself got slower, so the baseline drifts up slowly
+        for (int i = 0; i < 50; i++) {
+            window(limiter, limiter.getLimit() - 1, 3);
+        }
+        long drifted = limiter.getBaselineNanos();
+        assertTrue(drifted > baseline, "baseline should have drifted up from " + baseline);
+        assertTrue(drifted < TimeUnit.MILLISECONDS.toNanos(3 * UNIT_MS), "drift is gradual, not a jump to the new latency");
+
+        // A faster sample resets it straight away
+        window(limiter, 1, 1);
+        assertNear(1, limiter.getBaselineNanos());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter("test", initial, min, max, TOLERANCE, 1.0, 0, 1,
+                new SimpleMeterRegistry());
+    }
+
+    // One window: `concurrent` requests in flight together, each taking `latency` units
+    private static void window(AdaptiveConcurrencyLimiter limiter, int concurrent, long latency) {
+        for (int i = 0; i < concurrent; i++) {
+            assertTrue(limiter.tryAcquire(), "slot " + i + " of " + concurrent);
+        }
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(latency * UNIT_MS);
+        for (int i = 1; i < concurrent; i++) {
+            limiter.release(start, false);
+        }
+        limiter.release(start, true);
+    }
+
+    private static void assertNear(long expected, long actualNanos) {
+        long expectedNanos = TimeUnit.MILLISECONDS.toNanos(expected * UNIT_MS);
+        assertTrue(actualNanos >= expectedNanos && actualNanos < expectedNanos + TimeUnit.MILLISECONDS.toNanos(UNIT_MS / 2),
+                actualNanos + "ns should be about " + expected + " units");
+    }
+}
@@ -0,0 +1,149 @@
+package com.it342.g1.backend.warmup;
+
+import com.it342.g1.backend.analytics.LoginAnalytics;
+import com.it342.g1.backend.repository.UserRepository;
+import com.it342.g1.backend.security.SessionStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockReset;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Opaque mode so the warm-up's session tokens are covered too
+@SpringBootTest(properties = {
+        "warmup.enabled=true",
+        "warmup.timeout-ms=120000",
+        "warmup.iterations=200",
+        "warmup.bcrypt-iterations=2",
+        "warmup.query-iterations=20",
+        "auth.token-mode=opaque"
+})
+@Import(StartupWarmupTest.ReadinessRecorder.class)
+class StartupWarmupTest {
+
+    @Autowired
+    private ReadinessRecorder readinessRecorder;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private LoginAnalytics loginAnalytics;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    // Not reset between tests so the calls made during startup stay visible
+    @SpyBean(reset = MockReset.NONE)
+    private UserRepository userRepository;
+
+    // Records each readiness change together with how many warm-ups had completed at that moment
+    @TestConfiguration
+    static class ReadinessRecorder {
+
+        final List<String> changes = new CopyOnWriteArrayList<>();
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @EventListener
+        void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            changes.add(event.getState() + " after " + completedWarmups(meterRegistry) + " warm-up(s)");
+        }
+    }
+
+    // Readiness starts as REFUSING_TRAFFIC and only changes once, after the warm-up has completed
+    @Test
+    void readinessWaitsForTheWarmup() {
+        assertEquals(List.of("ACCEPTING_TRAFFIC after 1 warm-up(s)"), readinessRecorder.changes);
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+        assertEquals(1, completedWarmups(meterRegistry));
+    }
+
+    // Warm-up uses throwaway keys and negative user ids; none of them may leave a trace
+    @Test
+    void warmupLeavesNothingBehind() {
+        assertEquals(0, count("SELECT COUNT(*) FROM users WHERE username_normalized LIKE 'warmup%' "
+                + "OR email_normalized LIKE '%example.invalid' OR user_id <= 0"));
+        assertEquals(0, count("SELECT COUNT(*) FROM users_archive WHERE user_id <= 0"));
+        assertEquals(0, count("SELECT COUNT(*) FROM outbox_events WHERE aggregate_id <= 0 "
+                + "OR payload LIKE '%example.invalid%'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM refresh_tokens WHERE user_id <= 0"));
+        assertEquals(0, sessionStore.size());
+
+        // Failed-login counters and lockouts are written through the repository; startup only reads
+        Set<String> writes = Mockito.mockingDetails(userRepository).getInvocations().stream()
+                .map(Invocation::getMethod)
+                .map(Method::getName)
+                .filter(name -> !name.startsWith("find") && !name.startsWith("exists"))
+                .collect(Collectors.toSet());
+        assertTrue(writes.isEmpty(), "Unexpected repository writes during startup: " + writes);
+
+        Map<String, Object> stats = loginAnalytics.snapshot(1, 60);
+        assertEquals(0L, stats.get("dau"));
+        assertEquals(0L, stats.get("mau"));
+        for (Object minute : (List<?>) stats.get("perMinute")) {
+            Map<?, ?> counts = (Map<?, ?>) minute;
+            assertEquals(0L, counts.get("logins"));
+            assertEquals(0L, counts.get("failures"));
+            assertEquals(0L, counts.get("lockouts"));
+        }
+    }
+
+    // In JWT mode the warm-up tokens must take FastTokenVerifier's path, not fall back to jjwt
+    @Nested
+    @TestPropertySource(properties = "auth.token-mode=jwt")
+    class JwtMode {
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        void warmupRunsTheFastTokenPath() {
+            // validateToken and authenticate each accept every warm-up token
+            assertEquals(2 * 200, fastVerifications(meterRegistry, "accepted"));
+        }
+    }
+
+    private static double fastVerifications(MeterRegistry registry, String result) {
+        return registry.get("auth.token.fast-verify").tag("result", result).counter().count();
+    }
+
+    private int count(String sql) {
+        return jdbc.queryForObject(sql, Integer.class);
+    }
+
+    private static long completedWarmups(MeterRegistry registry) {
+        Timer timer = registry.find("startup.warmup").tag("outcome", "completed").timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -13,6 +13,7 @@ import com.it342.g1.rentuma.R;
 import com.it342.g1.rentuma.api.ApiClient;
 import com.it342.g1.rentuma.api.ApiService;
 import com.it342.g1.rentuma.api.models.MessageResponse;
+import com.it342.g1.rentuma.api.models.RefreshRequest;
 import com.it342.g1.rentuma.utils.SessionManager;
 
 import retrofit2.Call;
@@ -46,6 +47,7 @@ public class DashboardActivity extends AppCompatActivity {
         setContentView(R.layout.activity_dashboard);
 
         // Initialize API
+        ApiClient.init(this);
         apiService = ApiClient.getApiService();
 
         // Bind views
@@ -99,7 +101,7 @@ public class DashboardActivity extends AppCompatActivity {
 
         if (bearerToken != null) {
             // Call backend logout endpoint
-            apiService.logout(bearerToken).enqueue(new Callback<MessageResponse>() {
+            apiService.logout(bearerToken, new RefreshRequest(sessionManager.getRefreshToken())).enqueue(new Callback<MessageResponse>() {
                 @Override
                 public void onResponse(Call<MessageResponse> call, Response<MessageResponse> response) {
                     // Clear session regardless of response
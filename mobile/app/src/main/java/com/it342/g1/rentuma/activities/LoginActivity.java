@@ -54,6 +54,7 @@ public class LoginActivity extends AppCompatActivity {
         setContentView(R.layout.activity_login);
 
         // Initialize API service
+        ApiClient.init(this);
         apiService = ApiClient.getApiService();
 
         // Bind views
@@ -113,6 +114,7 @@ public class LoginActivity extends AppCompatActivity {
                     // Save session
                     sessionManager.saveSession(
                             authResponse.getToken(),
+                            authResponse.getRefreshToken(),
                             authResponse.getUsername(),
                             authResponse.getEmail());
 
@@ -23,6 +23,8 @@ import com.it342.g1.rentuma.api.models.MessageResponse;
 import com.it342.g1.rentuma.api.models.RegisterRequest;
 import com.it342.g1.rentuma.utils.SessionManager;
 
+import java.util.UUID;
+
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -42,12 +44,17 @@ public class RegisterActivity extends AppCompatActivity {
     private ApiService apiService;
     private SessionManager sessionManager;
 
+    // Kept while the form is unchanged so a re-tapped submit is recognised as a retry
+    private String idempotencyKey;
+    private String idempotencyInput;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_register);
 
         // Initialize
+        ApiClient.init(this);
         apiService = ApiClient.getApiService();
         sessionManager = new SessionManager(this);
 
@@ -119,7 +126,12 @@ public class RegisterActivity extends AppCompatActivity {
 
         // Make register API call
         RegisterRequest request = new RegisterRequest(username, email, password);
-        apiService.register(request).enqueue(new Callback<MessageResponse>() {
+        String input = username + "\n" + email + "\n" + password;
+        if (idempotencyKey == null || !input.equals(idempotencyInput)) {
+            idempotencyKey = UUID.randomUUID().toString();
+            idempotencyInput = input;
+        }
+        apiService.register(idempotencyKey, request).enqueue(new Callback<MessageResponse>() {
             @Override
             public void onResponse(Call<MessageResponse> call, Response<MessageResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
@@ -164,6 +176,7 @@ public class RegisterActivity extends AppCompatActivity {
                     // Save session
                     sessionManager.saveSession(
                             authResponse.getToken(),
+                            authResponse.getRefreshToken(),
                             authResponse.getUsername(),
                             authResponse.getEmail());
 
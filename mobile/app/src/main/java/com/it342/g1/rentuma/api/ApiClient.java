@@ -1,5 +1,9 @@
 package com.it342.g1.rentuma.api;
 
+import android.content.Context;
+
+import com.it342.g1.rentuma.utils.SessionManager;
+
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
@@ -19,6 +23,17 @@ public class ApiClient {
 
     private static Retrofit retrofit = null;
     private static ApiService apiService = null;
+    private static SessionManager sessionManager = null;
+
+    /**
+     * Give the client access to the stored tokens so it can refresh them on a 401
+     * Call before the first request; activities do this in onCreate
+     */
+    public static void init(Context context) {
+        if (sessionManager == null) {
+            sessionManager = new SessionManager(context.getApplicationContext());
+        }
+    }
 
     /**
      * Get configured Retrofit instance
@@ -29,12 +44,17 @@ public class ApiClient {
             HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
             logging.setLevel(HttpLoggingInterceptor.Level.BODY);
 
-            OkHttpClient client = new OkHttpClient.Builder()
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
                     .addInterceptor(logging)
                     .connectTimeout(30, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
-                    .writeTimeout(30, TimeUnit.SECONDS)
-                    .build();
+                    .writeTimeout(30, TimeUnit.SECONDS);
+
+            // Access tokens are short-lived: renew with the refresh token and retry on a 401
+            if (sessionManager != null) {
+                builder.authenticator(new TokenAuthenticator(sessionManager));
+            }
+            OkHttpClient client = builder.build();
 
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
@@ -3,6 +3,7 @@ package com.it342.g1.rentuma.api;
 import com.it342.g1.rentuma.api.models.AuthResponse;
 import com.it342.g1.rentuma.api.models.LoginRequest;
 import com.it342.g1.rentuma.api.models.MessageResponse;
+import com.it342.g1.rentuma.api.models.RefreshRequest;
 import com.it342.g1.rentuma.api.models.RegisterRequest;
 
 import retrofit2.Call;
@@ -26,14 +27,23 @@ public interface ApiService {
     /**
      * Register new user
      * POST /api/auth/register
+     * Retries of the same form submission reuse the Idempotency-Key so the server replays the first result
      */
     @POST("auth/register")
-    Call<MessageResponse> register(@Body RegisterRequest request);
+    Call<MessageResponse> register(@Header("Idempotency-Key") String idempotencyKey, @Body RegisterRequest request);
+
+    /**
+     * Exchange a refresh token for a new access token and refresh token
+     * POST /api/auth/refresh
+     */
+    @POST("auth/refresh")
+    Call<AuthResponse> refresh(@Body RefreshRequest request);
 
     /**
      * Logout user
      * POST /api/auth/logout
+     * The refresh token is revoked too, even when the access token has already expired
      */
     @POST("auth/logout")
-    Call<MessageResponse> logout(@Header("Authorization") String authToken);
+    Call<MessageResponse> logout(@Header("Authorization") String authToken, @Body RefreshRequest request);
 }
@@ -0,0 +1,62 @@
+package com.it342.g1.rentuma.api;
+
+import com.it342.g1.rentuma.api.models.AuthResponse;
+import com.it342.g1.rentuma.api.models.RefreshRequest;
+import com.it342.g1.rentuma.utils.SessionManager;
+
+import java.io.IOException;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * Renews the short-lived access token when the backend answers 401
+ * Exchanges the stored refresh token once, saves both new tokens and retries the request
+ */
+public class TokenAuthenticator implements Authenticator {
+
+    private static final String AUTHORIZATION = "Authorization";
+
+    private final SessionManager sessionManager;
+
+    public TokenAuthenticator(SessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        Request request = response.request();
+        String sentToken = request.header(AUTHORIZATION);
+
+        // Auth endpoints answer 401 for bad credentials; a retried request that fails again gives up
+        if (sentToken == null || request.url().encodedPath().contains("/auth/") || response.priorResponse() != null) {
+            return null;
+        }
+
+        // Concurrent 401s share one refresh: every refresh token can be used only once
+        synchronized (this) {
+            String currentToken = sessionManager.getBearerToken();
+            if (currentToken != null && !currentToken.equals(sentToken)) {
+                return request.newBuilder().header(AUTHORIZATION, currentToken).build();
+            }
+
+            String refreshToken = sessionManager.getRefreshToken();
+            if (refreshToken == null) {
+                return null;
+            }
+
+            retrofit2.Response<AuthResponse> refreshed = ApiClient.getApiService()
+                    .refresh(new RefreshRequest(refreshToken))
+                    .execute();
+            AuthResponse body = refreshed.body();
+            if (!refreshed.isSuccessful() || body == null) {
+                return null;
+            }
+
+            sessionManager.updateTokens(body.getToken(), body.getRefreshToken());
+            return request.newBuilder().header(AUTHORIZATION, sessionManager.getBearerToken()).build();
+        }
+    }
+}
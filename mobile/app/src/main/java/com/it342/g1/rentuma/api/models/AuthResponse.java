@@ -3,14 +3,20 @@ package com.it342.g1.rentuma.api.models;
 import com.google.gson.annotations.SerializedName;
 
 /**
- * Response model for login API
- * Contains JWT token and user info
+ * Response model for login and refresh APIs
+ * Contains the short-lived JWT, the refresh token that renews it, and user info
  */
 public class AuthResponse {
 
     @SerializedName("token")
     private String token;
 
+    @SerializedName("refreshToken")
+    private String refreshToken;
+
+    @SerializedName("expiresIn")
+    private Long expiresIn;
+
     @SerializedName("username")
     private String username;
 
@@ -21,6 +27,17 @@ public class AuthResponse {
         return token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * Access token lifetime in seconds
+     */
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+
     public String getUsername() {
         return username;
     }
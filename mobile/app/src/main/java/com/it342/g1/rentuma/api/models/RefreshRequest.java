@@ -0,0 +1,21 @@
+package com.it342.g1.rentuma.api.models;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Request model for refresh and logout
+ * POST /api/auth/refresh, POST /api/auth/logout
+ */
+public class RefreshRequest {
+
+    @SerializedName("refreshToken")
+    private String refreshToken;
+
+    public RefreshRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+}
@@ -5,12 +5,13 @@ import android.content.SharedPreferences;
 
 /**
  * SessionManager - Manages user session using SharedPreferences
- * Stores JWT token and user information
+ * Stores JWT token, refresh token and user information
  */
 public class SessionManager {
 
     private static final String PREF_NAME = "RentumaSession";
     private static final String KEY_TOKEN = "token";
+    private static final String KEY_REFRESH_TOKEN = "refreshToken";
     private static final String KEY_USERNAME = "username";
     private static final String KEY_EMAIL = "email";
     private static final String KEY_IS_LOGGED_IN = "isLoggedIn";
@@ -26,8 +27,9 @@ public class SessionManager {
     /**
      * Save user session after successful login
      */
-    public void saveSession(String token, String username, String email) {
+    public void saveSession(String token, String refreshToken, String username, String email) {
         editor.putString(KEY_TOKEN, token);
+        editor.putString(KEY_REFRESH_TOKEN, refreshToken);
         editor.putString(KEY_USERNAME, username);
         editor.putString(KEY_EMAIL, email);
         editor.putBoolean(KEY_IS_LOGGED_IN, true);
@@ -41,6 +43,22 @@ public class SessionManager {
         return prefs.getString(KEY_TOKEN, null);
     }
 
+    /**
+     * Replace both tokens after a refresh; every refresh token can be used only once
+     */
+    public void updateTokens(String token, String refreshToken) {
+        editor.putString(KEY_TOKEN, token);
+        editor.putString(KEY_REFRESH_TOKEN, refreshToken);
+        editor.apply();
+    }
+
+    /**
+     * Get stored refresh token
+     */
+    public String getRefreshToken() {
+        return prefs.getString(KEY_REFRESH_TOKEN, null);
+    }
+
     /**
      * Get Bearer token string for Authorization header
      */
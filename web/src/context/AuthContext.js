@@ -51,6 +51,7 @@ export const AuthProvider = ({ children }) => {
         } catch (e) {
           // Invalid stored user data
           localStorage.removeItem('token');
+          localStorage.removeItem('refreshToken');
           localStorage.removeItem('user');
         }
       }
@@ -76,7 +77,7 @@ export const AuthProvider = ({ children }) => {
       const response = await api.login(username, password);
 
       // Handle different response formats from backend
-      // Backend returns: { token, username, email }
+      // Backend returns: { token, refreshToken, expiresIn, username, email }
       const authToken = response.token;
       const respUsername = response.username;
       const respEmail = response.email;
@@ -85,7 +86,7 @@ export const AuthProvider = ({ children }) => {
       const userPayload = response.user || { username: respUsername, email: respEmail };
 
       // Store auth data
-      localStorage.setItem('token', authToken);
+      api.storeTokens(response);
       localStorage.setItem('user', JSON.stringify(userPayload));
 
       setToken(authToken);
@@ -134,7 +135,7 @@ export const AuthProvider = ({ children }) => {
         const authToken = loginResponse.token;
         const userPayload = loginResponse.user || { username: loginResponse.username, email: loginResponse.email };
 
-        localStorage.setItem('token', authToken);
+        api.storeTokens(loginResponse);
         localStorage.setItem('user', JSON.stringify(userPayload));
 
         setToken(authToken);
@@ -174,6 +175,7 @@ export const AuthProvider = ({ children }) => {
     } finally {
       // Always clear local state
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
       localStorage.removeItem('user');
       setToken(null);
       setUser(null);
@@ -8,6 +8,8 @@ const API_BASE_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api
 class ApiService {
   constructor() {
     this.baseUrl = API_BASE_URL;
+    // In-flight refresh shared by concurrent requests that hit an expired access token
+    this.refreshing = null;
   }
 
   /**
@@ -32,16 +34,21 @@ class ApiService {
    */
   async request(endpoint, options = {}) {
     const url = `${this.baseUrl}${endpoint}`;
-    const config = {
+    const send = () => fetch(url, {
       ...options,
       headers: {
         ...this.getHeaders(),
         ...options.headers,
       },
-    };
+    });
 
     try {
-      const response = await fetch(url, config);
+      let response = await send();
+
+      // Access tokens are short-lived: renew once with the refresh token and retry
+      if (response.status === 401 && !endpoint.startsWith('/auth/') && await this.refreshTokens()) {
+        response = await send();
+      }
       
       // Handle non-JSON responses
       const contentType = response.headers.get('content-type');
@@ -84,6 +91,37 @@ class ApiService {
     });
   }
 
+  /**
+   * Exchange the stored refresh token for a new access token and refresh token
+   * POST /api/auth/refresh
+   * @returns {Promise<boolean>} Whether usable tokens are stored afterwards
+   */
+  async refreshTokens() {
+    if (!this.refreshing) {
+      const presented = localStorage.getItem('refreshToken');
+      if (!presented) return false;
+
+      this.refreshing = fetch(`${this.baseUrl}/auth/refresh`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken: presented }),
+      })
+        .then(async (response) => {
+          if (!response.ok) {
+            // Another tab may have rotated the same token first; its tokens are already stored
+            return localStorage.getItem('refreshToken') !== presented;
+          }
+          this.storeTokens(await response.json());
+          return true;
+        })
+        .catch(() => false)
+        .finally(() => {
+          this.refreshing = null;
+        });
+    }
+    return this.refreshing;
+  }
+
   /**
    * Register new user
    * POST /api/auth/register
@@ -109,11 +147,13 @@ class ApiService {
     const token = localStorage.getItem('token');
     if (!token) return { success: true };
 
+    // Sending the refresh token revokes it too, even if the access token has expired
     return this.request('/auth/logout', {
       method: 'POST',
       headers: {
         'Authorization': `Bearer ${token}`,
       },
+      body: JSON.stringify({ refreshToken: localStorage.getItem('refreshToken') }),
     });
   }
 
@@ -156,6 +196,17 @@ class ApiService {
     return !!token;
   }
 
+  /**
+   * Store the tokens from a login or refresh response
+   * @param {Object} response - Auth response with token and refreshToken
+   */
+  storeTokens(response) {
+    localStorage.setItem('token', response.token);
+    if (response.refreshToken) {
+      localStorage.setItem('refreshToken', response.refreshToken);
+    }
+  }
+
   /**
    * Get stored token
    * @returns {string|null}
@@ -0,0 +1,67 @@
+import ApiService from './api';
+
+// Minimal fetch Response stand-in with a JSON body
+const jsonResponse = (status, body) => ({
+  status,
+  ok: status >= 200 && status < 300,
+  headers: { get: () => 'application/json' },
+  json: async () => body,
+});
+
+describe('ApiService token refresh', () => {
+  let api;
+
+  beforeEach(() => {
+    localStorage.clear();
+    localStorage.setItem('token', 'expired-access');
+    localStorage.setItem('refreshToken', 'refresh-1');
+    global.fetch = jest.fn();
+    jest.spyOn(console, 'error').mockImplementation(() => {});
+    api = new ApiService();
+  });
+
+  afterEach(() => {
+    jest.restoreAllMocks();
+  });
+
+  test('renews an expired access token once and retries the request', async () => {
+    fetch
+      .mockResolvedValueOnce(jsonResponse(401, { error: 'Invalid token' }))
+      .mockResolvedValueOnce(jsonResponse(200, { token: 'access-2', refreshToken: 'refresh-2' }))
+      .mockResolvedValueOnce(jsonResponse(200, { username: 'Refresh_Flow' }));
+
+    await expect(api.getProfile()).resolves.toEqual({ username: 'Refresh_Flow' });
+
+    expect(fetch).toHaveBeenCalledTimes(3);
+    expect(fetch.mock.calls[1][0]).toMatch(/\/auth\/refresh$/);
+    expect(JSON.parse(fetch.mock.calls[1][1].body)).toEqual({ refreshToken: 'refresh-1' });
+    expect(fetch.mock.calls[2][1].headers.Authorization).toBe('Bearer access-2');
+    expect(localStorage.getItem('token')).toBe('access-2');
+    expect(localStorage.getItem('refreshToken')).toBe('refresh-2');
+  });
+
+  test('concurrent requests share a single refresh', async () => {
+    fetch.mockImplementation(async (url, options) => {
+      if (url.endsWith('/auth/refresh')) {
+        return jsonResponse(200, { token: 'access-2', refreshToken: 'refresh-2' });
+      }
+      return options.headers.Authorization === 'Bearer access-2'
+        ? jsonResponse(200, { username: 'Refresh_Flow' })
+        : jsonResponse(401, { error: 'Invalid token' });
+    });
+
+    await Promise.all([api.getProfile(), api.getProfile()]);
+
+    const refreshes = fetch.mock.calls.filter(([url]) => url.endsWith('/auth/refresh'));
+    expect(refreshes).toHaveLength(1);
+  });
+
+  test('gives up when the refresh token is rejected', async () => {
+    fetch
+      .mockResolvedValueOnce(jsonResponse(401, { error: 'Invalid token' }))
+      .mockResolvedValueOnce(jsonResponse(401, { error: 'Invalid refresh token' }));
+
+    await expect(api.getProfile()).rejects.toThrow('Invalid token');
+    expect(fetch).toHaveBeenCalledTimes(2);
+  });
+});